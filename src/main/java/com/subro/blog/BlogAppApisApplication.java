@@ -1,16 +1,16 @@
 package com.subro.blog;
 
 
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 
 @SpringBootApplication
+@EnableScheduling
 public class BlogAppApisApplication implements CommandLineRunner {
 
 	@Autowired
@@ -20,16 +20,6 @@ public class BlogAppApisApplication implements CommandLineRunner {
 		SpringApplication.run(BlogAppApisApplication.class, args);
 	}
 
-    /**
-     * Provides a ModelMapper bean to map between DTOs and entities.
-     *
-     * @return a new instance of ModelMapper
-     */
-	@Bean
-	public ModelMapper modelMapper(){
-		return new ModelMapper();
-	}
-
 	/**
 	 * The main entry point for the application when it is run from the command line.
 	 * <p>
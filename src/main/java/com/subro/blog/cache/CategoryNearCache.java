@@ -0,0 +1,174 @@
+package com.subro.blog.cache;
+
+import com.subro.blog.mappers.CategoryMapper;
+import com.subro.blog.payloads.CategoryDto;
+import com.subro.blog.repositories.CategoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * All categories, held in memory so that the write paths and the category filters of the post listings can
+ * check a category without a SELECT.
+ * <p>
+ * Categories are a small set that rarely changes. They are loaded when the application is ready and
+ * reloaded every {@code blog.categories.refresh-interval}, which picks up changes made through other
+ * instances. Changes made through {@code CategoryServiceImpl} are applied once their transaction commits.
+ * A category that is not held yet, e.g. one created through another instance since the last reload, is
+ * looked up in the database and added.
+ */
+@Component
+public class CategoryNearCache {
+    private static final Logger log = LoggerFactory.getLogger(CategoryNearCache.class);
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private volatile Map<Integer, CategoryDto> categories = Collections.emptyMap();
+    /** The number of changes applied so far, to recognize a reload that was overtaken by a change. */
+    private long modifications;
+
+    /**
+     * Reloads all categories from the database. When that fails the categories held so far are kept, as
+     * categories that are not held are looked up on use anyway. A reload is discarded when a category was
+     * changed while it ran, as it may predate that change; the next reload picks up the rest.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${blog.categories.refresh-interval}", fixedDelayString = "${blog.categories.refresh-interval}")
+    public void refresh() {
+        long modificationsBefore;
+        synchronized (this) {
+            modificationsBefore = this.modifications;
+        }
+        Map<Integer, CategoryDto> loaded;
+        try {
+            loaded = this.categoryRepository.findAll().stream()
+                    .map(category -> this.categoryMapper.toDto(category))
+                    .collect(Collectors.toMap(CategoryDto::getCategoryId, category -> category));
+        } catch (DataAccessException ex) {
+            log.warn("Could not reload the categories, keeping the {} loaded before", this.categories.size(), ex);
+            return;
+        }
+        synchronized (this) {
+            if (this.modifications != modificationsBefore) {
+                log.debug("Discarded {} categories loaded while categories were changed", loaded.size());
+                return;
+            }
+            this.categories = Collections.unmodifiableMap(loaded);
+        }
+        log.debug("Loaded {} categories", loaded.size());
+    }
+
+    /**
+     * Returns a category, from memory if it is held and otherwise from the database. A category looked up
+     * in the database is only added when no category was changed meanwhile, as with {@link #refresh()}, so a
+     * delete committed during the lookup is not undone.
+     *
+     * @param categoryId the ID of the category
+     * @return a copy of the category, or empty if no such category exists
+     */
+    public Optional<CategoryDto> get(Integer categoryId) {
+        CategoryDto category = this.categories.get(categoryId);
+        if (category == null) {
+            long modificationsBefore;
+            synchronized (this) {
+                modificationsBefore = this.modifications;
+            }
+            category = this.categoryRepository.findById(categoryId)
+                    .map(found -> this.categoryMapper.toDto(found))
+                    .orElse(null);
+            if (category != null) {
+                this.add(category, modificationsBefore);
+            }
+        }
+        return Optional.ofNullable(category).map(CategoryNearCache::copy);
+    }
+
+    /**
+     * Drops a category right away and looks it up again in a transaction of its own. Used when a write that
+     * relied on the category held failed, e.g. because it was deleted through another instance since the
+     * last reload; the transaction of the write cannot be used for the lookup anymore.
+     *
+     * @param categoryId the ID of the category
+     * @return a copy of the category, or empty if no such category exists
+     */
+    public Optional<CategoryDto> reload(Integer categoryId) {
+        this.apply(categoryId, null);
+        TransactionTemplate transaction = new TransactionTemplate(this.transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction.execute(status -> this.get(categoryId));
+    }
+
+    /**
+     * Adds or replaces a category once the current transaction commits, right away without a transaction.
+     *
+     * @param category the created or updated category
+     */
+    public void put(CategoryDto category) {
+        CategoryDto held = copy(category);
+        afterCommit(() -> this.apply(held.getCategoryId(), held));
+    }
+
+    /**
+     * Removes a category once the current transaction commits, right away without a transaction.
+     *
+     * @param categoryId the ID of the deleted category
+     */
+    public void evict(Integer categoryId) {
+        afterCommit(() -> this.apply(categoryId, null));
+    }
+
+    private synchronized void add(CategoryDto category, long modificationsBefore) {
+        if (this.modifications == modificationsBefore) {
+            this.apply(category.getCategoryId(), category);
+        }
+    }
+
+    private synchronized void apply(Integer categoryId, CategoryDto category) {
+        Map<Integer, CategoryDto> updated = new HashMap<>(this.categories);
+        if (category == null) {
+            updated.remove(categoryId);
+        } else {
+            updated.put(categoryId, category);
+        }
+        this.categories = Collections.unmodifiableMap(updated);
+        this.modifications++;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static CategoryDto copy(CategoryDto category) {
+        return new CategoryDto(category.getCategoryId(), category.getCategoryTitle(), category.getCategoryDescription());
+    }
+}
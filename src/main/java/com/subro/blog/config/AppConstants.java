@@ -5,4 +5,12 @@ public class AppConstants {
     public static final String PAGE_SIZE="10";
     public static final String SORT_BY="postId";
     public static final String SORT_DIRECTION="asc";
+    public static final int MAX_PAGE_SIZE=100;
+    public static final int MAX_BATCH_SIZE=500;
+    public static final int ID_ALLOCATION_SIZE=50;
+    public static final String EXPORT_FETCH_SIZE="500";
+    public static final String POST_CACHE="posts";
+    public static final String PRINCIPAL_CACHE="principals";
+    public static final String THUMBNAIL_SUFFIX="-thumb";
+    public static final int THUMBNAIL_SIZE=320;
 }
@@ -0,0 +1,40 @@
+package com.subro.blog.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    @Value("${blog.cache.posts.spec}")
+    private String postCacheSpec;
+    @Value("${blog.cache.principals.spec}")
+    private String principalCacheSpec;
+
+    /**
+     * Provides the {@link CacheManager} backing the application's local caches.
+     * <p>
+     * Each cache is a Caffeine cache configured from its own spec property, so size and TTL can be tuned
+     * per cache. Statistics are always recorded, which lets Actuator publish hit, miss and eviction counts
+     * under the {@code cache.*} metrics.
+     * <p>
+     * Puts and evictions made inside a transaction are deferred until it commits, so a read racing a write
+     * cannot cache data from before the commit after the write evicted it, and a rolled back write evicts
+     * nothing.
+     *
+     * @return the configured {@link CacheManager}
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(AppConstants.POST_CACHE, Caffeine.from(postCacheSpec).recordStats().build());
+        cacheManager.registerCustomCache(AppConstants.PRINCIPAL_CACHE, Caffeine.from(principalCacheSpec).recordStats().build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,75 @@
+package com.subro.blog.config;
+
+import com.subro.blog.datasource.ReadYourWritesTracker;
+import com.subro.blog.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary, once a replica is configured
+ * with {@code blog.datasource.replica.jdbc-url}. Without it the auto-configured {@code spring.datasource}
+ * pool is used for everything.
+ * <p>
+ * The primary pool is configured from {@code spring.datasource}, the replica pool from the Hikari properties
+ * under {@code blog.datasource.replica}. The application uses a {@link LazyConnectionDataSourceProxy} that
+ * fetches the physical connection on the first statement, after the transaction has marked it read-only,
+ * and takes read-only connections from the replica. Users who committed a write within
+ * {@code blog.datasource.sticky-window} keep reading from the primary so they see their own changes.
+ */
+@Configuration
+@ConditionalOnProperty("blog.datasource.replica.jdbc-url")
+public class DataSourceConfig {
+    @Value("${blog.datasource.sticky-window}")
+    private Duration stickyWindow;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("blog.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(stickyWindow);
+    }
+
+    /**
+     * Provides the data source used by JPA and every other JDBC client of the application.
+     *
+     * @param primary the primary pool, used for read-write transactions and outside transactions
+     * @param replica the replica pool, used for read-only transactions
+     * @param readYourWritesTracker the tracker of users who wrote recently
+     * @return the routing data source
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 ReadYourWritesTracker readYourWritesTracker) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica, readYourWritesTracker));
+        return dataSource;
+    }
+}
@@ -0,0 +1,86 @@
+package com.subro.blog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+    @Value("${blog.login.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int loginPoolSize;
+    @Value("${blog.login.queue-capacity}")
+    private int loginQueueCapacity;
+    @Value("${blog.thumbnails.queue-capacity}")
+    private int thumbnailQueueCapacity;
+
+    /**
+     * Provides the executor that runs password verification for {@code /api/auth/login}.
+     * <p>
+     * BCrypt is deliberately CPU heavy, so logins get a fixed pool sized to the CPUs and a bounded queue
+     * instead of running on request threads. Once the queue is full further logins are rejected with a
+     * {@link java.util.concurrent.RejectedExecutionException} rather than piling up and starving the other
+     * endpoints. A queue capacity of 0 hands logins straight to an idle thread and rejects them when there
+     * is none. The executor is instrumented under the name {@code login}, which publishes the queue depth
+     * ({@code executor.queued}), the time spent waiting ({@code executor.idle}) and verifying
+     * ({@code executor}).
+     *
+     * @param meterRegistry the registry to publish the executor metrics to
+     * @return the instrumented login executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService loginExecutor(MeterRegistry meterRegistry) {
+        BlockingQueue<Runnable> queue = loginQueueCapacity > 0 ? new ArrayBlockingQueue<>(loginQueueCapacity) : new SynchronousQueue<>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(loginPoolSize, loginPoolSize, 0L, TimeUnit.MILLISECONDS,
+                queue, new CustomizableThreadFactory("login-"), new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "login");
+    }
+
+    /**
+     * Provides the executor that generates image thumbnails in the background.
+     * <p>
+     * A single low priority thread decodes and scales one image at a time, so uploads never wait for
+     * thumbnails and a burst of uploads cannot take CPU away from request handling. Requests beyond the
+     * bounded queue are rejected and retried on demand. The executor is instrumented under the name
+     * {@code thumbnails}.
+     *
+     * @param meterRegistry the registry to publish the executor metrics to
+     * @return the instrumented thumbnail executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService thumbnailExecutor(MeterRegistry meterRegistry) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("thumbnail-");
+        threadFactory.setThreadPriority(Thread.MIN_PRIORITY);
+        threadFactory.setDaemon(true);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(thumbnailQueueCapacity), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "thumbnails");
+    }
+
+    /**
+     * Provides the executor that runs bulk imports.
+     * <p>
+     * One import runs at a time, and this executor runs the writer of it; the reader that parses the file
+     * runs on a thread of the import itself. The single slot in the queue lets the next import wait for the
+     * thread of the previous one to return to the pool instead of being rejected. The executor is
+     * instrumented under the name {@code imports}.
+     *
+     * @param meterRegistry the registry to publish the executor metrics to
+     * @return the instrumented import executor
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService importExecutor(MeterRegistry meterRegistry) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1), new CustomizableThreadFactory("import-"), new ThreadPoolExecutor.AbortPolicy());
+        return ExecutorServiceMetrics.monitor(meterRegistry, executor, "imports");
+    }
+}
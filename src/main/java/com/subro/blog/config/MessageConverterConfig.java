@@ -0,0 +1,44 @@
+package com.subro.blog.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Registers binary encodings of the JSON payloads for consumers that send {@code Accept: application/cbor}
+ * or {@code Accept: application/x-jackson-smile}. Both are Jackson formats of the same data model, so every
+ * DTO serializes unchanged, only without the cost of text encoding, escaping and number formatting.
+ * Requests without one of these media types in {@code Accept} still get JSON, which stays first in the
+ * converter list.
+ */
+@Configuration
+public class MessageConverterConfig {
+
+    /**
+     * Provides the CBOR converter, whose ObjectMapper is configured from the same {@code spring.jackson.*}
+     * settings and modules as the JSON one.
+     *
+     * @param builder the ObjectMapper builder configured by Spring Boot
+     * @return the CBOR converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Provides the Smile converter, whose ObjectMapper is configured from the same {@code spring.jackson.*}
+     * settings and modules as the JSON one.
+     *
+     * @param builder the ObjectMapper builder configured by Spring Boot
+     * @return the Smile converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,23 @@
+package com.subro.blog.config;
+
+import com.subro.blog.metrics.StatementCounter;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+    /**
+     * Registers the {@link StatementCounter} as Hibernate's statement inspector, so the statements of every
+     * request can be counted. The session factory statistics themselves ({@code hibernate.*} metrics) are
+     * published by Spring Boot once {@code hibernate.generate_statistics} is enabled.
+     *
+     * @param statementCounter the counter to register
+     * @return the customizer adding the statement inspector to the Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+}
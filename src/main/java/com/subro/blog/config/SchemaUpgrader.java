@@ -0,0 +1,84 @@
+package com.subro.blog.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Brings the data of an existing database in line with schema changes that {@code ddl-auto=update} applies
+ * to the tables only. Runs once the schema is updated and before the web server accepts requests; every
+ * step checks whether it is needed, so it is safe to run on every start.
+ */
+@Component
+public class SchemaUpgrader implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrader.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        this.upgrade();
+    }
+
+    /**
+     * Applies every upgrade step the database still needs.
+     */
+    public void upgrade() {
+        this.advanceSequence("post_seq", "posts", "post_id");
+        this.advanceSequence("comment_seq", "comments", "id");
+        this.backfillCommentCounts();
+    }
+
+    /**
+     * Counts the comments of every post once {@code posts.comment_count} was added to a database that has
+     * comments. The column is added with all counts at 0, which no database with comments has otherwise, so
+     * on later starts the check stops at the first commented post. The versions of the counted posts are bumped, as
+     * every comment count update does.
+     */
+    private void backfillCommentCounts() {
+        boolean uncounted = this.jdbcTemplate.queryForObject("select case when exists (select 1 from comments where post_post_id is not null)"
+                + " and not exists (select 1 from posts where comment_count > 0) then 1 else 0 end", Integer.class) == 1;
+        if (!uncounted) {
+            return;
+        }
+        int counted = this.jdbcTemplate.update("update posts set comment_count = (select count(*) from comments where comments.post_post_id = posts.post_id),"
+                + " version = version + 1 where exists (select 1 from comments where comments.post_post_id = posts.post_id)");
+        log.info("Counted the comments of {} posts", counted);
+    }
+
+    /**
+     * Moves an ID sequence past the IDs already in its table. Posts and comments took their IDs from
+     * IDENTITY columns before they moved to pooled sequences, which {@code ddl-auto=update} creates starting
+     * at 1, so the first inserts would reuse existing IDs.
+     * <p>
+     * The pooled optimizer hands out the block ending at the value it reads, so the sequence has to read at
+     * least {@code max(id) + }{@value AppConstants#ID_ALLOCATION_SIZE}. MySQL has no sequences and Hibernate
+     * keeps the next value in a single-row table; other databases read a native sequence, which costs one
+     * unused block per start.
+     */
+    private void advanceSequence(String sequence, String table, String idColumn) {
+        long required = this.jdbcTemplate.queryForObject("select coalesce(max(" + idColumn + "), 0) from " + table, Long.class)
+                + AppConstants.ID_ALLOCATION_SIZE;
+        Dialect dialect = this.entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        if (!dialect.getSequenceSupport().supportsSequences()) {
+            if (this.jdbcTemplate.update("update " + sequence + " set next_val = ? where next_val < ?", required, required) > 0) {
+                log.info("Advanced {} to {} past the existing {}", sequence, required, table);
+            }
+            return;
+        }
+        long next = this.jdbcTemplate.queryForObject(dialect.getSequenceSupport().getSequenceNextValString(sequence), Long.class);
+        if (next < required) {
+            this.jdbcTemplate.execute("alter sequence " + sequence + " restart with " + required);
+            log.info("Advanced {} to {} past the existing {}", sequence, required, table);
+        }
+    }
+}
@@ -35,7 +35,7 @@ public class SecurityConfig{
      * Builds a {@link SecurityFilterChain} that
      * <ol>
      *     <li>Disables CSRF protection</li>
-     *     <li>Requires all requests to be authenticated</li>
+     *     <li>Requires all requests except login, the health check and the Prometheus scrape to be authenticated</li>
      *     <li>Uses the {@link #authenticationProvider()} as the authentication provider</li>
      *     <li>Disables the form-based login</li>
      *     <li>Uses the default HTTP Basic configuration</li>
@@ -48,6 +48,7 @@ public class SecurityConfig{
 public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
     http.csrf(csrf->csrf.disable())
             .authorizeHttpRequests(auth->auth.requestMatchers("/api/auth/**").permitAll()
+                    .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                     .anyRequest().authenticated())
             .authenticationProvider(authenticationProvider())
             .sessionManagement(session->session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -0,0 +1,92 @@
+package com.subro.blog.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they block inside a
+ * {@code synchronized} block or a native frame, e.g. in a JDBC driver that still synchronizes on the
+ * connection. A pinned virtual thread holds one of the few carrier threads for as long as it blocks, so a
+ * handful of them can stall every other request.
+ * <p>
+ * Only active with {@code spring.threads.virtual.enabled=true}. Pinning events longer than
+ * {@code blog.virtual-threads.pinned-threshold} are streamed from JFR, recorded in the
+ * {@code jvm.threads.virtual.pinned} timer and logged once per distinct stack trace.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 12;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${blog.virtual-threads.pinned-threshold}")
+    private Duration pinnedThreshold;
+
+    private final Set<String> reportedStacks = ConcurrentHashMap.newKeySet();
+    private RecordingStream recordingStream;
+
+    /**
+     * Starts streaming pinning events once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Timer pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads spent blocked while pinned to their carrier thread")
+                .register(this.meterRegistry);
+        this.recordingStream = new RecordingStream();
+        this.recordingStream.enable(PINNED_EVENT).withThreshold(this.pinnedThreshold).withStackTrace();
+        this.recordingStream.onEvent(PINNED_EVENT, event -> {
+            pinned.record(event.getDuration());
+            this.report(event);
+        });
+        this.recordingStream.startAsync();
+        log.info("Reporting virtual threads pinned for longer than {}", this.pinnedThreshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (this.recordingStream != null) {
+            this.recordingStream.close();
+        }
+    }
+
+    private void report(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return;
+        }
+        String stack = stackTrace.getFrames().stream()
+                .limit(REPORTED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe)
+                .collect(Collectors.joining("\n\tat "));
+        if (this.reportedStacks.add(stack)) {
+            log.warn("Virtual thread pinned to its carrier for {} ms\n\tat {}", event.getDuration().toMillis(), stack);
+        }
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -4,6 +4,7 @@ import com.subro.blog.payloads.JWTResponse;
 import com.subro.blog.payloads.LoginRequest;
 import com.subro.blog.security.JWTTokenHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -15,6 +16,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -24,19 +28,35 @@ public class AuthController {
     @Autowired
     private JWTTokenHelper jwtTokenHelper;
 
+    @Autowired
+    @Qualifier("loginExecutor")
+    private ExecutorService loginExecutor;
+
+    /**
+     * Authenticates the user and issues a JWT.
+     * <p>
+     * The password check runs on the bounded login executor and the request thread is released while it
+     * waits. When the executor is saturated the login is rejected immediately with 503 and a Retry-After
+     * header, see {@link com.subro.blog.config.ExecutorConfig#loginExecutor}.
+     *
+     * @param request the login credentials
+     * @return a future completing with the JWT response
+     */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-        try {
-            Authentication auth = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(request.getUserName(), request.getPassword())
-            );
-
-            UserDetails userDetails = (UserDetails) auth.getPrincipal();
-            String token = jwtTokenHelper.generateToken(userDetails);
-
-            return ResponseEntity.ok(new JWTResponse(token));
-        } catch (BadCredentialsException e) {
-            throw new BadCredentialsException("Invalid username or password");
-        }
+    public CompletableFuture<ResponseEntity<JWTResponse>> login(@RequestBody LoginRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Authentication auth = authenticationManager.authenticate(
+                        new UsernamePasswordAuthenticationToken(request.getUserName(), request.getPassword())
+                );
+
+                UserDetails userDetails = (UserDetails) auth.getPrincipal();
+                String token = jwtTokenHelper.generateToken(userDetails);
+
+                return ResponseEntity.ok(new JWTResponse(token));
+            } catch (BadCredentialsException e) {
+                throw new BadCredentialsException("Invalid username or password");
+            }
+        }, loginExecutor);
     }
 }
@@ -1,7 +1,9 @@
 package com.subro.blog.controllers;
 
 import com.subro.blog.payloads.ApiResponse;
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.payloads.CommentDto;
+import com.subro.blog.payloads.CursorResponse;
 import com.subro.blog.services.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -38,4 +40,22 @@ public class CommentController {
         this.commentService.deleteComment(commentId);
         return new ResponseEntity<>(new ApiResponse("Comment deleted successfully", true), HttpStatus.OK);
    }
+
+   /**
+    * Handles the HTTP GET request for the comments on a post, returned oldest first one keyset-paginated
+    * slice at a time.
+    *
+    * @param postId the ID of the post whose comments are to be retrieved
+    * @param after the cursor returned by the previous slice, optional
+    * @param limit the maximum number of comments in the slice
+    * @return a ResponseEntity containing a CursorResponse of CommentDto objects and an HTTP status of OK
+    */
+   @GetMapping("post/{postId}/comments")
+   public ResponseEntity<CursorResponse<CommentDto>> getCommentsByPost(
+           @PathVariable Integer postId,
+           @RequestParam(value = "after", required = false) String after,
+           @RequestParam(value = "limit", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer limit){
+        CursorResponse<CommentDto> comments = this.commentService.getCommentsByPost(postId, after, limit);
+        return new ResponseEntity<>(comments, HttpStatus.OK);
+   }
 }
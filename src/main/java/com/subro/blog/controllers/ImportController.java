@@ -0,0 +1,55 @@
+package com.subro.blog.controllers;
+
+import com.subro.blog.payloads.ImportJobDto;
+import com.subro.blog.payloads.ImportType;
+import com.subro.blog.services.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/")
+public class ImportController {
+    @Autowired
+    private ImportService importService;
+
+    /**
+     * Handles the HTTP POST request for importing users, posts or comments from a file in the import directory.
+     * The import runs in the background; its progress is available from {@link #getImport(long)}.
+     *
+     * @param type the type of the records in the file
+     * @param file the name of the NDJSON or CSV file in the import directory
+     * @return a ResponseEntity containing the progress of the started import and an HTTP status of ACCEPTED
+     * @throws IOException if the file does not exist or cannot be read
+     */
+    @PostMapping("imports")
+    public ResponseEntity<ImportJobDto> startImport(@RequestParam("type") ImportType type, @RequestParam("file") String file) throws IOException {
+        ImportJobDto importJobDto = this.importService.startImport(type, file);
+        return new ResponseEntity<>(importJobDto, HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Handles the HTTP GET request for the progress of an import.
+     *
+     * @param jobId the ID of the import
+     * @return a ResponseEntity containing the progress of the import and an HTTP status of OK
+     */
+    @GetMapping("imports/{jobId}")
+    public ResponseEntity<ImportJobDto> getImport(@PathVariable long jobId) {
+        return new ResponseEntity<>(this.importService.getImport(jobId), HttpStatus.OK);
+    }
+
+    /**
+     * Handles the HTTP GET request for the progress of all imports, latest first.
+     *
+     * @return a ResponseEntity containing the progress of the imports and an HTTP status of OK
+     */
+    @GetMapping("imports")
+    public ResponseEntity<List<ImportJobDto>> getImports() {
+        return new ResponseEntity<>(this.importService.getImports(), HttpStatus.OK);
+    }
+}
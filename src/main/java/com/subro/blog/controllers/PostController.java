@@ -2,35 +2,64 @@ package com.subro.blog.controllers;
 
 import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.Post;
+import com.subro.blog.exceptions.InvalidFieldsException;
 import com.subro.blog.payloads.ApiResponse;
+import com.subro.blog.payloads.CursorResponse;
 import com.subro.blog.payloads.PostDto;
 import com.subro.blog.payloads.PostResponse;
+import com.subro.blog.payloads.PostVersion;
+import com.subro.blog.services.CategoryService;
 import com.subro.blog.services.FileService;
 import com.subro.blog.services.PostService;
-import jakarta.servlet.http.HttpServletResponse;
+import com.subro.blog.services.UserService;
+import com.subro.blog.views.PostViewCounter;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ETag;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/")
 public class PostController {
+    private static final MediaType SMILE = new MediaType("application", "x-jackson-smile");
 
     @Autowired
     private PostService postService;
     @Autowired
     private FileService fileService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CategoryService categoryService;
+    @Autowired
+    private ContentNegotiationManager contentNegotiationManager;
+    @Autowired
+    private PostViewCounter postViewCounter;
     @Value("${project.image}")
     private String path;
     /**
@@ -52,61 +81,211 @@ public class PostController {
     }
 
     /**
-     * Retrieves all posts created by a specific user.
+     * Creates up to {@value AppConstants#MAX_BATCH_SIZE} posts under the specified user and category in one
+     * request, for example to migrate content. Either all posts are created or none.
+     *
+     * @param postDtos the details of the posts
+     * @param userId the user ID
+     * @param categoryId the category ID
+     * @return a ResponseEntity containing the saved posts in the given order
+     */
+    @PostMapping("/user/{userId}/category/{categoryId}/posts/batch")
+    public ResponseEntity<List<PostDto>> createPosts(
+            @RequestBody @Size(min = 1, max = AppConstants.MAX_BATCH_SIZE) List<@Valid PostDto> postDtos,
+            @PathVariable Integer userId,
+            @PathVariable Integer categoryId)
+    {
+        List<PostDto> savedPostDtos = this.postService.createPosts(postDtos, userId, categoryId);
+        return new ResponseEntity<>(savedPostDtos, HttpStatus.CREATED);
+    }
+
+    /**
+     * Retrieves all posts created by a specific user. When {@code after} or {@code limit} is given the posts
+     * are returned one keyset-paginated slice at a time instead of as a single list. A request with a matching
+     * {@code If-None-Match} is answered with 304 after looking up only the versions of the posts.
      *
      * @param userId the ID of the user whose posts are to be retrieved
-     * @return a ResponseEntity containing a list of PostDto objects and an HTTP status of OK
+     * @param after the cursor returned by the previous slice, optional
+     * @param limit the maximum number of posts in the slice, optional
+     * @param fields the comma separated fields to return instead of whole posts, optional
+     * @param webRequest the current request, for its conditional headers and accepted media types
+     * @return a ResponseEntity containing a list of PostDto objects, or a CursorResponse in cursor mode, and an HTTP status of OK,
+     * or an empty response with an HTTP status of NOT_MODIFIED
      */
     @GetMapping("/user/{userId}/posts")
-    public ResponseEntity<List<PostDto>> getPostsByUser(@PathVariable Integer userId){
+    public ResponseEntity<?> getPostsByUser(
+            @PathVariable Integer userId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            NativeWebRequest webRequest){
+        if (fields != null) {
+            requireListMode(after, limit);
+            return new ResponseEntity<>(this.postService.getPostFieldsByUser(userId, fields), HttpStatus.OK);
+        }
+        String format = this.format(webRequest);
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (after != null || limit != null) {
+            if (conditional) {
+                String eTag = eTag(this.postService.getPostVersionsByUser(userId, after, limit), format, after);
+                if (isNotModified(webRequest, eTag)) {
+                    return notModified(eTag);
+                }
+            }
+            CursorResponse<PostDto> postsByUser = this.postService.getPostsByUser(userId, after, limit);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(postsByUser, format, after)).body(postsByUser);
+        }
+        if (conditional) {
+            String eTag = PostVersion.eTag(this.postService.getPostVersionsByUser(userId), format);
+            if (isNotModified(webRequest, eTag)) {
+                return notModified(eTag);
+            }
+        }
         List<PostDto> postsByUser = this.postService.getPostsByUser(userId);
-        return new ResponseEntity<>(postsByUser, HttpStatus.OK);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(postsByUser, format)).body(postsByUser);
     }
 
     /**
-     * Retrieves all posts categorized under the specified category ID.
+     * Retrieves all posts categorized under the specified category ID. When {@code after} or {@code limit}
+     * is given the posts are returned one keyset-paginated slice at a time instead of as a single list. A
+     * request with a matching {@code If-None-Match} is answered with 304 after looking up only the versions of
+     * the posts.
      *
      * @param categoryId the ID of the category whose posts are to be retrieved
-     * @return a ResponseEntity containing a list of PostDto objects and an HTTP status of OK
+     * @param after the cursor returned by the previous slice, optional
+     * @param limit the maximum number of posts in the slice, optional
+     * @param fields the comma separated fields to return instead of whole posts, optional
+     * @param webRequest the current request, for its conditional headers and accepted media types
+     * @return a ResponseEntity containing a list of PostDto objects, or a CursorResponse in cursor mode, and an HTTP status of OK,
+     * or an empty response with an HTTP status of NOT_MODIFIED
      */
     @GetMapping("/category/{categoryId}/posts")
-    public ResponseEntity<List<PostDto>> getPostsByCategory(@PathVariable Integer categoryId){
+    public ResponseEntity<?> getPostsByCategory(
+            @PathVariable Integer categoryId,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            NativeWebRequest webRequest){
+        if (fields != null) {
+            requireListMode(after, limit);
+            return new ResponseEntity<>(this.postService.getPostFieldsByCategory(categoryId, fields), HttpStatus.OK);
+        }
+        String format = this.format(webRequest);
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (after != null || limit != null) {
+            if (conditional) {
+                String eTag = eTag(this.postService.getPostVersionsByCategory(categoryId, after, limit), format, after);
+                if (isNotModified(webRequest, eTag)) {
+                    return notModified(eTag);
+                }
+            }
+            CursorResponse<PostDto> postsByCategory = this.postService.getPostsByCategory(categoryId, after, limit);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(postsByCategory, format, after)).body(postsByCategory);
+        }
+        if (conditional) {
+            String eTag = PostVersion.eTag(this.postService.getPostVersionsByCategory(categoryId), format);
+            if (isNotModified(webRequest, eTag)) {
+                return notModified(eTag);
+            }
+        }
         List<PostDto> postsByCategory = this.postService.getPostsByCategory(categoryId);
-        return new ResponseEntity<>(postsByCategory, HttpStatus.OK);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(postsByCategory, format)).body(postsByCategory);
     }
 
     /**
-     * Retrieves a post by its ID.
+     * Retrieves a post by its ID. The response carries a weak ETag and the modification time of the post;
+     * a request with a matching {@code If-None-Match} is answered with 304 after looking up only the version
+     * of the post. The ETag differs between the JSON, CBOR and Smile representations of the post.
+     * Every retrieval counts as a view of the post; the view count is not part of the ETag, which is why it is
+     * weak.
+     *
+     * With {@code fields}, e.g. {@code ?fields=postTitle,user.name}, only the selected fields are read and
+     * returned, without ETag.
      *
      * @param postId the ID of the post to be retrieved
-     * @return a ResponseEntity containing the PostDto object and an HTTP status of OK
+     * @param fields the comma separated fields to return instead of the whole post, optional
+     * @param webRequest the current request, for its conditional headers and accepted media types
+     * @return a ResponseEntity containing the PostDto object and an HTTP status of OK, or an empty response with an HTTP status of NOT_MODIFIED
      */
     @GetMapping("/post/{postId}")
-    public ResponseEntity<PostDto> getPostById(@PathVariable Integer postId){
-        PostDto postDtoById = this.postService.getPostById(postId);
-        return new ResponseEntity<>(postDtoById, HttpStatus.OK);
+    public ResponseEntity<?> getPostById(@PathVariable Integer postId,
+                                         @RequestParam(value = "fields", required = false) String fields,
+                                         NativeWebRequest webRequest){
+        if (fields != null) {
+            Map<String, Object> postFields = this.postService.getPostFields(postId, fields);
+            this.postViewCounter.record(postId);
+            return new ResponseEntity<>(postFields, HttpStatus.OK);
+        }
+        String format = this.format(webRequest);
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            PostVersion version = this.postService.getPostVersion(postId);
+            if (isNotModified(webRequest, version.eTag(format))) {
+                this.postViewCounter.record(postId);
+                return withVersion(ResponseEntity.status(HttpStatus.NOT_MODIFIED), version, format).build();
+            }
+        }
+        PostDto cachedPostDto = this.postService.getPostById(postId);
+        this.postViewCounter.record(postId);
+        PostDto postDtoById = this.postViewCounter.withCurrentViews(cachedPostDto);
+        return withVersion(ResponseEntity.ok(), PostVersion.of(postDtoById), format).body(postDtoById);
     }
 
     /**
      * Retrieves all posts in the system. The posts can be sorted on the basis of post title or post creation date.
      * The posts can be retrieved in a paginated manner by specifying the page number and page size.
      * The default page number is 0 and the default page size is 10.
+     * Deep pages can instead be read with keyset pagination by passing {@code limit} and then the
+     * {@code after} cursor returned with each slice; the cursor keeps the sort of the first slice.
+     * Besides JSON the posts can be requested as CBOR or Smile through the {@code Accept} header, which
+     * are cheaper to encode and smaller on the wire. In both modes a request with a matching
+     * {@code If-None-Match} is answered with 304 after looking up only the versions of the posts.
      *
      * @param pageNumber the page number of the posts to be retrieved, default is 0
      * @param pageSize the page size of the posts to be retrieved, default is 10
      * @param sortBy the field to sort the posts on, default is post title
      * @param sortDirection the direction of sorting, default is ascending
-     * @return a ResponseEntity containing the posts and an HTTP status of OK
+     * @param after the cursor returned by the previous slice, switches to keyset pagination, optional
+     * @param limit the maximum number of posts in a keyset-paginated slice, switches to keyset pagination, optional
+     * @param fields the comma separated fields to return instead of whole posts, not combinable with keyset pagination, optional
+     * @param webRequest the current request, for its conditional headers and accepted media types
+     * @return a ResponseEntity containing the posts and an HTTP status of OK, or an empty response with an HTTP status of NOT_MODIFIED
      */
     @GetMapping("/posts")
-    public ResponseEntity<PostResponse> getAllPosts(
-            @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) Integer pageNumber,
-            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) Integer pageSize,
+    public ResponseEntity<?> getAllPosts(
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) @Min(0) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) @Min(1) Integer pageSize,
             @RequestParam(value="sortBy", defaultValue = AppConstants.SORT_BY, required = false) String sortBy,
-            @RequestParam(value="sortDirection", defaultValue = AppConstants.SORT_DIRECTION, required = false) String sortDirection)
+            @RequestParam(value="sortDirection", defaultValue = AppConstants.SORT_DIRECTION, required = false) String sortDirection,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "fields", required = false) String fields,
+            NativeWebRequest webRequest)
     {
+        if (fields != null) {
+            requireListMode(after, limit);
+            return new ResponseEntity<>(this.postService.getAllPostFields(fields, pageNumber, pageSize, sortBy, sortDirection), HttpStatus.OK);
+        }
+        String format = this.format(webRequest);
+        boolean conditional = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+        if (after != null || limit != null) {
+            if (conditional) {
+                String eTag = eTag(this.postService.getAllPostVersions(after, limit, sortBy, sortDirection), format, after, sortBy, sortDirection);
+                if (isNotModified(webRequest, eTag)) {
+                    return notModified(eTag);
+                }
+            }
+            CursorResponse<PostDto> allPosts = this.postService.getAllPosts(after, limit, sortBy, sortDirection);
+            return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(allPosts, format, after, sortBy, sortDirection)).body(allPosts);
+        }
+        if (conditional) {
+            Page<PostVersion> versions = this.postService.getAllPostVersions(pageNumber, pageSize, sortBy, sortDirection);
+            String eTag = PostVersion.eTag(versions.getContent(), format, versions.getNumber(), versions.getSize(), versions.getTotalElements());
+            if (isNotModified(webRequest, eTag)) {
+                return notModified(eTag);
+            }
+        }
         PostResponse allPosts = this.postService.getAllPosts(pageNumber, pageSize, sortBy, sortDirection);
-        return new ResponseEntity<>(allPosts, HttpStatus.OK);
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(eTag(allPosts, format)).body(allPosts);
     }
 
     /**
@@ -135,17 +314,64 @@ public class PostController {
     }
 
     /**
-     * Retrieves all posts with titles containing the given search keywords.
+     * Retrieves the posts whose title or content match the given search keywords, most relevant first.
      *
      * @param keywords the search keywords
-     * @return a ResponseEntity containing the list of PostDto objects and an HTTP status of OK
+     * @param pageNumber the page number of the results to be retrieved, default is 0
+     * @param pageSize the page size of the results to be retrieved, default is 10
+     * @return a ResponseEntity containing the page of matching posts and an HTTP status of OK
      */
     @GetMapping("/posts/search/{keywords}")
-    public ResponseEntity<List<PostDto>> searchPostsByTitle(
-            @PathVariable("keywords")String keywords
+    public ResponseEntity<PostResponse> searchPosts(
+            @PathVariable("keywords")String keywords,
+            @RequestParam(value = "pageNumber", defaultValue = AppConstants.PAGE_NUMBER, required = false) @Min(0) Integer pageNumber,
+            @RequestParam(value = "pageSize", defaultValue = AppConstants.PAGE_SIZE, required = false) @Min(1) Integer pageSize
     ){
-        List<PostDto> postDtos = this.postService.searchPostByTitle(keywords);
-        return new ResponseEntity<>(postDtos, HttpStatus.OK);
+        PostResponse postResponse = this.postService.searchPosts(keywords, pageNumber, pageSize);
+        return new ResponseEntity<>(postResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Exports all posts as newline-delimited JSON, one post per line. The response is
+     * streamed from a database cursor while it is written, so memory use stays flat however many posts
+     * there are.
+     *
+     * @return a ResponseEntity streaming the posts and an HTTP status of OK
+     */
+    @GetMapping("/posts/export")
+    public ResponseEntity<StreamingResponseBody> exportPosts() {
+        StreamingResponseBody body = out -> this.postService.exportPosts(out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exports all posts created by a specific user as newline-delimited JSON. The user is looked up before
+     * the response starts, so an unknown user is still answered with 404.
+     *
+     * @param userId the ID of the user whose posts are to be exported
+     * @return a ResponseEntity streaming the posts and an HTTP status of OK
+     * @see #exportPosts()
+     */
+    @GetMapping("/user/{userId}/posts/export")
+    public ResponseEntity<StreamingResponseBody> exportPostsByUser(@PathVariable Integer userId) {
+        this.userService.getUserById(userId);
+        StreamingResponseBody body = out -> this.postService.exportPostsByUser(userId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * Exports all posts categorized under the specified category as newline-delimited JSON. The category is
+     * looked up before the response starts, so an unknown category is still answered with 404.
+     *
+     * @param categoryId the ID of the category whose posts are to be exported
+     * @return a ResponseEntity streaming the posts and an HTTP status of OK
+     * @see #exportPosts()
+     */
+    @GetMapping("/category/{categoryId}/posts/export")
+    public ResponseEntity<StreamingResponseBody> exportPostsByCategory(@PathVariable Integer categoryId) {
+        this.categoryService.getCategoryById(categoryId);
+        StreamingResponseBody body = out -> this.postService.exportPostsByCategory(categoryId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
@@ -161,26 +387,113 @@ public class PostController {
             @RequestParam("image") MultipartFile image,
             @PathVariable Integer postId
     ) throws IOException {
-        PostDto postDto = this.postService.getPostById(postId);
+        String previousImage = this.postService.getPostById(postId).getImageName();
         String fileName = this.fileService.uploadImage(path, image);
-        postDto.setImageName(fileName);
-        PostDto updatedPost = this.postService.updatePost(postDto, postId);
+        PostDto updatedPost = this.postService.updatePostImage(postId, fileName);
+        if (!fileName.equals(previousImage)) {
+            this.fileService.evictResource(path, previousImage);
+        }
         return new ResponseEntity<>(updatedPost, HttpStatus.OK);
     }
 
     /**
      * Downloads an image associated with a post identified by its image name.
+     * <p>
+     * The file is streamed as a {@link Resource}, so it is never buffered on the heap, and Spring answers
+     * {@code Range} requests with 206 partial content. Every response carries Content-Length, a strong
+     * ETag and Last-Modified, which turn {@code If-None-Match} and {@code If-Modified-Since} revalidations
+     * into 304 responses without reading the file. Uploaded images are stored under the hash of their
+     * content and never overwritten, so they are marked cacheable for a year.
+     * <p>
+     * Thumbnails are requested by their {@code thumbnailName}. Until a thumbnail has been generated the
+     * original image is served in its place, marked to be revalidated instead of cached.
      *
      * @param imageName the name of the image to be downloaded
-     * @param response the HttpServletResponse to write the image to
-     * @throws IOException if an error occurs while reading the image from the file system
-     */
-    @GetMapping(value = "post/image/{imageName}", produces = MediaType.IMAGE_JPEG_VALUE)
-    public void downloadImage(
-            @PathVariable("imageName") String imageName,
-            HttpServletResponse response) throws IOException {
-        InputStream resource = this.fileService.getResource(path, imageName);
-        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
-        StreamUtils.copy(resource, response.getOutputStream());
+     * @return a ResponseEntity containing the image and an HTTP status of OK
+     * @throws IOException if the image does not exist or its metadata cannot be read
+     */
+    @GetMapping("post/image/{imageName}")
+    public ResponseEntity<Resource> downloadImage(@PathVariable("imageName") String imageName) throws IOException {
+        Resource resource = this.fileService.getResource(path, imageName);
+        long lastModified = resource.lastModified();
+        CacheControl cacheControl = imageName.equals(resource.getFilename())
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable()
+                : CacheControl.noCache();
+        return ResponseEntity.ok()
+                .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .cacheControl(cacheControl)
+                .eTag(resource.getFilename() + "-" + resource.contentLength() + "-" + lastModified)
+                .lastModified(lastModified)
+                .body(resource);
+    }
+
+    private static void requireListMode(String after, Integer limit) {
+        if (after != null || limit != null) {
+            throw new InvalidFieldsException("fields cannot be combined with keyset pagination");
+        }
+    }
+
+    private static boolean isNotModified(WebRequest webRequest, String eTag) {
+        ETag current = ETag.create(eTag);
+        return ETag.parse(webRequest.getHeader(HttpHeaders.IF_NONE_MATCH)).stream()
+                .anyMatch(requested -> requested.isWildcard() || requested.compare(current, false));
+    }
+
+    /**
+     * Resolves the suffix that sets the ETag of a binary representation apart from the JSON one, following
+     * the order in which the message converters are matched against the {@code Accept} header.
+     */
+    private String format(NativeWebRequest webRequest) {
+        try {
+            for (MediaType mediaType : this.contentNegotiationManager.resolveMediaTypes(webRequest)) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return "";
+                }
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_CBOR)) {
+                    return "-cbor";
+                }
+                if (mediaType.isCompatibleWith(SMILE)) {
+                    return "-smile";
+                }
+            }
+        } catch (HttpMediaTypeNotAcceptableException ex) {
+            // an unparsable Accept header is rejected when the body is written
+        }
+        return "";
+    }
+
+    private static ResponseEntity.BodyBuilder withVersion(ResponseEntity.BodyBuilder response, PostVersion version, String format) {
+        response.varyBy(HttpHeaders.ACCEPT).eTag(version.eTag(format));
+        if (version.lastModified() != null) {
+            response.lastModified(version.lastModified().getTime());
+        }
+        return response;
+    }
+
+    private static String eTag(List<PostDto> posts, String format) {
+        return PostVersion.eTag(posts.stream().map(PostVersion::of).toList(), format);
+    }
+
+    private static ResponseEntity<?> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).varyBy(HttpHeaders.ACCEPT).eTag(eTag).build();
+    }
+
+    /**
+     * Derives the ETag of a keyset-paginated slice from the request parameters that select it instead of
+     * from the cursor of the next slice, so it can also be derived from {@link #eTag(Slice, String, Object...)}.
+     * The next cursor only depends on the request and on the sort keys of the last post, which change with its version.
+     */
+    private static String eTag(CursorResponse<PostDto> posts, String format, Object... request) {
+        return PostVersion.eTag(posts.getContent().stream().map(PostVersion::of).toList(),
+                format, Arrays.toString(request), posts.getLimit(), posts.isLastPage());
+    }
+
+    private static String eTag(Slice<PostVersion> versions, String format, Object... request) {
+        return PostVersion.eTag(versions.getContent(), format, Arrays.toString(request), versions.getSize(), versions.isLast());
+    }
+
+    private static String eTag(PostResponse posts, String format) {
+        return PostVersion.eTag(posts.getContent().stream().map(PostVersion::of).toList(),
+                format, posts.getPageNumber(), posts.getPageSize(), posts.getTotalElements());
     }
 }
@@ -44,11 +44,18 @@ public class UserController {
     /**
      * Retrieves the user identified by the given userId.
      *
+     * With {@code fields}, e.g. {@code ?fields=name,about}, only the selected fields are read and returned.
+     *
      * @param userId The ID of the user to be retrieved.
+     * @param fields The comma separated fields to return instead of the whole user, optional.
      * @return A ResponseEntity containing the UserDto of the retrieved user and an HTTP status of OK.
      */
     @GetMapping("/{userId}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Integer userId){
+    public ResponseEntity<?> getUserById(@PathVariable Integer userId,
+                                         @RequestParam(value = "fields", required = false) String fields){
+        if (fields != null) {
+            return ResponseEntity.ok(this.userService.getUserFields(userId, fields));
+        }
         UserDto userDto = this.userService.getUserById(userId);
         return ResponseEntity.ok(userDto);
     }
@@ -56,10 +63,14 @@ public class UserController {
     /**
      * Handles the HTTP GET request for retrieving all users.
      *
+     * @param fields The comma separated fields to return instead of whole users, optional.
      * @return A ResponseEntity containing the list of UserDto objects of all users and an HTTP status of OK.
      */
     @GetMapping("/")
-    public ResponseEntity<List<UserDto>> getAllUsers(){
+    public ResponseEntity<?> getAllUsers(@RequestParam(value = "fields", required = false) String fields){
+        if (fields != null) {
+            return ResponseEntity.ok(this.userService.getAllUserFields(fields));
+        }
         List<UserDto> users = this.userService.getAllUsers();
         return ResponseEntity.ok(users);
     }
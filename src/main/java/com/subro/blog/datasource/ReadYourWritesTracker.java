@@ -0,0 +1,53 @@
+package com.subro.blog.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.time.Duration;
+
+/**
+ * Remembers which users committed a write recently, so that their reads keep going to the primary until the
+ * replica has caught up with the write.
+ * <p>
+ * Registered as a {@link TransactionExecutionListener}, it marks the authenticated user after every
+ * committed read-write transaction. The mark expires after the sticky window, which should be longer than
+ * the usual replication lag. Anonymous requests and background jobs are never sticky.
+ */
+public class ReadYourWritesTracker implements TransactionExecutionListener {
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(Duration stickyWindow) {
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(stickyWindow).build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && !transaction.isReadOnly()) {
+            String writer = currentUser();
+            if (writer != null) {
+                this.recentWriters.put(writer, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * @return whether the current user committed a write within the sticky window
+     */
+    public boolean isSticky() {
+        String user = currentUser();
+        return user != null && this.recentWriters.getIfPresent(user) != null;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,30 @@
+package com.subro.blog.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * The data source for read-only transactions: the replica, or the primary for users who wrote within the
+ * sticky window of the {@link ReadYourWritesTracker}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        this.setDefaultTargetDataSource(replica);
+        this.setLenientFallback(false);
+        this.afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return this.readYourWritesTracker.isSticky() ? PRIMARY : REPLICA;
+    }
+}
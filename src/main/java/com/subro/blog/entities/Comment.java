@@ -1,5 +1,6 @@
 package com.subro.blog.entities;
 
+import com.subro.blog.config.AppConstants;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,11 +13,12 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Comment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comment_seq")
+    @SequenceGenerator(name = "comment_seq", sequenceName = "comment_seq", allocationSize = AppConstants.ID_ALLOCATION_SIZE)
     private int id;
     private String content;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Post post;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
 }
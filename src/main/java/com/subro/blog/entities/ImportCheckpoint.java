@@ -0,0 +1,29 @@
+package com.subro.blog.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a bulk import, saved in the same transaction as every imported chunk. An interrupted import
+ * of the same file resumes after the last committed record instead of importing it again.
+ */
+@Entity
+@Table(name = "import_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportCheckpoint {
+    /**
+     * The import type and file name, e.g. {@code POSTS:posts.ndjson}.
+     */
+    @Id
+    private String jobKey;
+    /**
+     * The number of records read from the start of the file, imported or rejected, that are committed.
+     */
+    private long recordsProcessed;
+}
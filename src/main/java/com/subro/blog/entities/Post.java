@@ -1,20 +1,29 @@
 package com.subro.blog.entities;
 
+import com.subro.blog.config.AppConstants;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.util.*;
 
 @Entity
 @Table(name = "posts")
+@NamedEntityGraph(name = "Post.summary", attributeNodes = {
+        @NamedAttributeNode("user"),
+        @NamedAttributeNode("category")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Post {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "post_seq")
+    @SequenceGenerator(name = "post_seq", sequenceName = "post_seq", allocationSize = AppConstants.ID_ALLOCATION_SIZE)
     private Integer postId;
     @Column(name = "post_title", nullable = false)
     private String postTitle;
@@ -22,13 +31,38 @@ public class Post {
     private String postContent;
     private String imageName;
     private Date addedDate;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private User user;
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL)
+    @BatchSize(size = AppConstants.MAX_PAGE_SIZE)
     private List<Comment> comments = new ArrayList<>();
+    /**
+     * Only ever written by the comment count updates of {@code PostRepository}, so saving a loaded post never
+     * overwrites comments added or removed since it was loaded.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private int commentCount;
+    /**
+     * Incremented on every change of the post, its comment count, author or category; the post ETags are
+     * derived from it.
+     */
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private long version;
+    @UpdateTimestamp
+    private Date lastModified;
+    /**
+     * Only ever written by {@code PostViewCounter}, so saving a post never overwrites views counted since
+     * it was loaded. Not part of the version.
+     */
+    @Column(nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long viewCount;
 
 
 }
@@ -1,7 +1,9 @@
 package com.subro.blog.entities;
 
+import com.subro.blog.config.AppConstants;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -34,6 +36,7 @@ public class User implements UserDetails {
    @JoinTable(name = "user_role",
    joinColumns = @JoinColumn(name = "user", referencedColumnName = "id"),
    inverseJoinColumns = @JoinColumn(name = "role", referencedColumnName = "id"))
+   @BatchSize(size = AppConstants.MAX_PAGE_SIZE)
    private Set<Role> roles=new HashSet<>();
 
     /**
@@ -3,16 +3,23 @@ package com.subro.blog.exceptions;
 import com.subro.blog.payloads.ApiResponse;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.MalformedJwtException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
+import java.io.FileNotFoundException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -29,6 +36,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<ApiResponse>(apiResponse, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles FileNotFoundException raised when a requested image does not exist.
+     *
+     * @param ex the FileNotFoundException thrown when the file is not found
+     * @return a ResponseEntity containing an ApiResponse with the error message and an HTTP status of NOT_FOUND
+     */
+    @ExceptionHandler(FileNotFoundException.class)
+    public ResponseEntity<ApiResponse> fileNotFoundExceptionHandler(FileNotFoundException ex){
+        ApiResponse apiResponse=new ApiResponse(ex.getMessage(),false);
+        return new ResponseEntity<ApiResponse>(apiResponse, HttpStatus.NOT_FOUND);
+    }
+
     /**
      * Handles MethodArgumentNotValidException and returns a response entity containing a map of errors.
      * The keys of the map are the field names and the values are the corresponding error messages.
@@ -45,6 +64,64 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    /**
+     * Handles HandlerMethodValidationException raised when a list request body or one of its elements is
+     * invalid. The keys of the map are the element index and field name, e.g. {@code [3].postTitle}.
+     *
+     * @param ex the HandlerMethodValidationException thrown when the request body is invalid
+     * @return a ResponseEntity containing a map of errors and an HTTP status of BAD_REQUEST
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<Map<String, String>> handlerMethodValidationExceptionHandler(HandlerMethodValidationException ex){
+        Map<String, String> errors=new LinkedHashMap<>();
+        ex.getParameterValidationResults().forEach(result -> {
+            String prefix = result.getContainerIndex() != null ? "[" + result.getContainerIndex() + "]"
+                    : result.getMethodParameter().getParameterName();
+            result.getResolvableErrors().forEach(error -> errors.put(
+                    error instanceof FieldError fieldError ? prefix + "." + fieldError.getField() : prefix,
+                    error.getDefaultMessage()));
+        });
+        return ResponseEntity.badRequest().body(errors);
+    }
+
+    /**
+     * Handles InvalidCursorException and InvalidFieldsException raised for invalid request parameters such as a
+     * malformed pagination cursor or an unknown field in {@code fields}.
+     *
+     * @param ex the exception describing the invalid parameter
+     * @return a ResponseEntity containing an ApiResponse with the error message and an HTTP status of BAD_REQUEST
+     */
+    @ExceptionHandler({InvalidCursorException.class, InvalidFieldsException.class})
+    public ResponseEntity<ApiResponse> invalidParameterExceptionHandler(RuntimeException ex){
+        ApiResponse apiResponse=new ApiResponse(ex.getMessage(),false);
+        return new ResponseEntity<ApiResponse>(apiResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles UnsupportedImageException raised when an uploaded file is not an image in a supported format.
+     *
+     * @param ex the UnsupportedImageException describing the supported formats
+     * @return a ResponseEntity containing an ApiResponse with the error message and an HTTP status of UNSUPPORTED_MEDIA_TYPE
+     */
+    @ExceptionHandler(UnsupportedImageException.class)
+    public ResponseEntity<ApiResponse> unsupportedImageExceptionHandler(UnsupportedImageException ex){
+        ApiResponse apiResponse=new ApiResponse(ex.getMessage(),false);
+        return new ResponseEntity<ApiResponse>(apiResponse, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+
+    /**
+     * Handles OptimisticLockingFailureException raised when a post is changed concurrently with an update,
+     * for example by a new comment, so the client can retry the update.
+     *
+     * @param ex the OptimisticLockingFailureException thrown when the version of the post has moved on
+     * @return a ResponseEntity containing an ApiResponse with the error message and an HTTP status of CONFLICT
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException ex){
+        ApiResponse apiResponse=new ApiResponse("The resource was modified concurrently, please retry",false);
+        return new ResponseEntity<ApiResponse>(apiResponse, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(BadCredentialsException.class)
     public ResponseEntity<?> handleBadCredentials(BadCredentialsException ex) {
         return new ResponseEntity<>(Map.of(
@@ -77,6 +154,23 @@ public class GlobalExceptionHandler {
         ), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles RejectedExecutionException thrown when a bounded executor, such as the login executor, is saturated.
+     * The request is shed immediately and the client is asked to retry shortly.
+     *
+     * @param ex the RejectedExecutionException thrown by the executor
+     * @return a ResponseEntity with an HTTP status of SERVICE_UNAVAILABLE and a Retry-After header
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<?> handleRejectedExecution(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of(
+                        "error", "Server is busy, please retry",
+                        "status", HttpStatus.SERVICE_UNAVAILABLE.value()
+                ));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGeneralException(Exception ex) {
         return new ResponseEntity<>(Map.of(
@@ -0,0 +1,16 @@
+package com.subro.blog.exceptions;
+
+/**
+ * Thrown when a keyset pagination request cannot be served, because its cursor is malformed or it sorts
+ * on a property that cursors cannot seek on.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+package com.subro.blog.exceptions;
+
+/**
+ * Thrown when the {@code fields} parameter of a read request selects a field that cannot be selected, or
+ * is combined with a paging mode that does not support it.
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.subro.blog.exceptions;
+
+/**
+ * Thrown when an uploaded file is not an image in one of the formats that are stored and served.
+ */
+public class UnsupportedImageException extends RuntimeException {
+
+    public UnsupportedImageException(String message) {
+        super(message);
+    }
+}
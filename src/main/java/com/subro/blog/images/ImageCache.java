@@ -0,0 +1,319 @@
+package com.subro.blog.images;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the bytes of recently downloaded images in direct buffers, outside of the Java heap, so hot images
+ * are served from memory without reading the file again and without adding to the garbage collector's work.
+ * <p>
+ * The cache is bounded by {@code blog.images.cache.max-size} resident bytes and evicts the least recently
+ * served image first; files larger than {@code blog.images.cache.max-file-size} are never cached. The memory
+ * of an evicted buffer is released once the last download still writing it completes. Requests, evictions,
+ * entries and resident bytes are published as the {@code cache.*} metrics of the {@code images} cache,
+ * alongside those of the Caffeine caches.
+ */
+@Component
+public class ImageCache {
+    public static final String NAME = "images";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${blog.images.cache.max-size}")
+    private DataSize maxSize;
+    @Value("${blog.images.cache.max-file-size}")
+    private DataSize maxFileSize;
+
+    private final Map<Path, CachedImage> images = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long residentBytes;
+
+    @PostConstruct
+    public void registerMetrics() {
+        new ImageCacheMetrics(this).bindTo(this.meterRegistry);
+    }
+
+    /**
+     * Returns the given image, from memory if it is cached and otherwise read into the cache, unless it is
+     * too large to be cached.
+     *
+     * @param file the image file, which must exist
+     * @return the image as a Resource
+     */
+    public Resource get(Path file) {
+        this.lock.lock();
+        try {
+            CachedImage image = this.images.get(file);
+            if (image != null) {
+                this.hits.increment();
+                return image.resource();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        this.misses.increment();
+        try {
+            long size = Files.size(file);
+            if (size > this.maxFileSize.toBytes() || size > this.maxSize.toBytes()) {
+                return new FileSystemResource(file);
+            }
+            return this.put(file, read(file, size)).resource();
+        } catch (IOException ex) {
+            // served from the file, which reports the error when the download is written
+            return new FileSystemResource(file);
+        }
+    }
+
+    /**
+     * Removes the given image from the cache, e.g. when it is no longer referenced by the post it belonged to.
+     *
+     * @param file the image file
+     */
+    public void evict(Path file) {
+        this.lock.lock();
+        try {
+            CachedImage image = this.images.remove(file);
+            if (image != null) {
+                this.residentBytes -= image.size();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private CachedImage put(Path file, CachedImage image) {
+        this.lock.lock();
+        try {
+            CachedImage existing = this.images.get(file);
+            if (existing != null) {
+                // read concurrently by another download
+                return existing;
+            }
+            this.images.put(file, image);
+            this.residentBytes += image.size();
+            this.puts.increment();
+            Iterator<CachedImage> eldest = this.images.values().iterator();
+            while (this.residentBytes > this.maxSize.toBytes() && eldest.hasNext()) {
+                this.residentBytes -= eldest.next().size();
+                eldest.remove();
+                this.evictions.increment();
+            }
+            return image;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static CachedImage read(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            ByteBuffer buffer = ByteBuffer.allocateDirect((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            return new CachedImage(file.getFileName().toString(), buffer.asReadOnlyBuffer(), lastModified);
+        }
+    }
+
+    private long size() {
+        this.lock.lock();
+        try {
+            return this.images.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private long residentBytes() {
+        this.lock.lock();
+        try {
+            return this.residentBytes;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private record CachedImage(String fileName, ByteBuffer bytes, long lastModified) {
+        long size() {
+            return this.bytes.limit();
+        }
+
+        Resource resource() {
+            return new ByteBufferResource(this);
+        }
+    }
+
+    /**
+     * A cached image as a Resource. Every stream reads its own view of the shared read-only buffer.
+     */
+    private static final class ByteBufferResource extends AbstractResource {
+        private final CachedImage image;
+
+        private ByteBufferResource(CachedImage image) {
+            this.image = image;
+        }
+
+        @Override
+        public String getFilename() {
+            return this.image.fileName();
+        }
+
+        @Override
+        public String getDescription() {
+            return "cached image [" + this.image.fileName() + "]";
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+
+        @Override
+        public long contentLength() {
+            return this.image.size();
+        }
+
+        @Override
+        public long lastModified() {
+            return this.image.lastModified();
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(this.image.bytes().duplicate());
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() {
+            return Channels.newChannel(this.getInputStream());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return this == other || (other instanceof ByteBufferResource that && this.image == that.image);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.image);
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, this.buffer.remaining());
+            this.buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+            this.buffer.position(this.buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
+
+    private static final class ImageCacheMetrics extends CacheMeterBinder<ImageCache> {
+
+        private ImageCacheMetrics(ImageCache cache) {
+            // the same tag keys as the Spring caches, as Prometheus drops meters whose tag keys differ by name
+            super(cache, NAME, Tags.of("cache.manager", "imageCache", "name", NAME));
+        }
+
+        @Override
+        protected Long size() {
+            return this.getCache().size();
+        }
+
+        @Override
+        protected long hitCount() {
+            return this.getCache().hits.sum();
+        }
+
+        @Override
+        protected Long missCount() {
+            return this.getCache().misses.sum();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            return this.getCache().evictions.sum();
+        }
+
+        @Override
+        protected long putCount() {
+            return this.getCache().puts.sum();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            Gauge.builder("cache.resident", this.getCache(), ImageCache::residentBytes)
+                    .tags(this.getTagsWithCacheName())
+                    .baseUnit("bytes")
+                    .description("The bytes of the cached images held in direct buffers")
+                    .register(registry);
+            Gauge.builder("cache.hit.ratio", this.getCache(), cache -> {
+                        long hits = cache.hits.sum();
+                        long requests = hits + cache.misses.sum();
+                        return requests == 0 ? Double.NaN : (double) hits / requests;
+                    })
+                    .tags(this.getTagsWithCacheName())
+                    .description("The share of image downloads served from the cache")
+                    .register(registry);
+        }
+    }
+}
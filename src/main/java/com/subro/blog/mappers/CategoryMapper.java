@@ -0,0 +1,26 @@
+package com.subro.blog.mappers;
+
+import com.subro.blog.entities.Category;
+import com.subro.blog.payloads.CategoryDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CategoryMapper {
+    /**
+     * Converts a Category into a CategoryDto.
+     * @param category the Category to be converted
+     * @return the corresponding CategoryDto
+     */
+    CategoryDto toDto(Category category);
+
+    /**
+     * Converts a CategoryDto into a Category. The posts of the category are left empty.
+     * @param categoryDto the CategoryDto to be converted
+     * @return the corresponding Category
+     */
+    @Mapping(target = "posts", ignore = true)
+    Category toEntity(CategoryDto categoryDto);
+}
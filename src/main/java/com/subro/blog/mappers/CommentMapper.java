@@ -0,0 +1,27 @@
+package com.subro.blog.mappers;
+
+import com.subro.blog.entities.Comment;
+import com.subro.blog.payloads.CommentDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CommentMapper {
+    /**
+     * Converts a Comment into a CommentDto.
+     * @param comment the Comment to be converted
+     * @return the corresponding CommentDto
+     */
+    CommentDto toDto(Comment comment);
+
+    /**
+     * Converts a CommentDto into a Comment. The post and user of the comment are left unset.
+     * @param commentDto the CommentDto to be converted
+     * @return the corresponding Comment
+     */
+    @Mapping(target = "post", ignore = true)
+    @Mapping(target = "user", ignore = true)
+    Comment toEntity(CommentDto commentDto);
+}
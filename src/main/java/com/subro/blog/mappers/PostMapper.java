@@ -0,0 +1,75 @@
+package com.subro.blog.mappers;
+
+import com.subro.blog.entities.Post;
+import com.subro.blog.payloads.CategoryDto;
+import com.subro.blog.payloads.PostDto;
+import com.subro.blog.payloads.UserDto;
+import com.subro.blog.services.FileService;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.Named;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING,
+        uses = {UserMapper.class, CategoryMapper.class},
+        injectionStrategy = InjectionStrategy.CONSTRUCTOR,
+        unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface PostMapper {
+    /**
+     * Converts a Post into a PostDto including its user and category. The comments are not loaded; they are
+     * paged through separately and only their count is included.
+     * @param post the Post to be converted
+     * @return the corresponding PostDto
+     */
+    @Mapping(target = "thumbnailName", source = "imageName", qualifiedByName = "thumbnailName")
+    PostDto toDto(Post post);
+
+    /**
+     * Converts a Post into a PostDto with the given user and category instead of those of the post, which
+     * are not accessed, so references that were never loaded stay unloaded.
+     * @param post the Post to be converted
+     * @param user the user to embed
+     * @param category the category to embed
+     * @return the corresponding PostDto
+     */
+    @Mapping(target = "thumbnailName", source = "post.imageName", qualifiedByName = "thumbnailName")
+    @Mapping(target = "user", source = "user")
+    @Mapping(target = "category", source = "category")
+    PostDto toDto(Post post, UserDto user, CategoryDto category);
+
+    /**
+     * Converts a PostDto into a Post. The user, category, comments, comment count, version, modification
+     * time and view count are not taken from the DTO; they are maintained by the services that own them.
+     * @param postDto the PostDto to be converted
+     * @return the corresponding Post
+     */
+    @Mapping(target = "user", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "lastModified", ignore = true)
+    @Mapping(target = "viewCount", ignore = true)
+    Post toEntity(PostDto postDto);
+
+    /**
+     * Copies a PostDto with another view count. The user and category are shared with the given PostDto.
+     * @param postDto the PostDto to be copied
+     * @param viewCount the view count of the copy
+     * @return the copy
+     */
+    @Mapping(target = "viewCount", source = "viewCount")
+    PostDto withViewCount(PostDto postDto, long viewCount);
+
+    /**
+     * Derives the name of the thumbnail of a post image.
+     * @param imageName the name of the image
+     * @return the name of its thumbnail
+     */
+    @Named("thumbnailName")
+    default String thumbnailName(String imageName) {
+        return FileService.thumbnailNameOf(imageName);
+    }
+}
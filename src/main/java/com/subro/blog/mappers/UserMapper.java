@@ -0,0 +1,29 @@
+package com.subro.blog.mappers;
+
+import com.subro.blog.entities.User;
+import com.subro.blog.payloads.UserDto;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingConstants;
+import org.mapstruct.ReportingPolicy;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING, unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface UserMapper {
+    /**
+     * Converts a User into a UserDto.
+     * @param user the User to be converted
+     * @return the corresponding UserDto
+     */
+    UserDto toDto(User user);
+
+    /**
+     * Converts a UserDto into a User. Posts, comments and roles are left empty.
+     * @param userDto the UserDto to be converted
+     * @return the corresponding User
+     */
+    @Mapping(target = "posts", ignore = true)
+    @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "roles", ignore = true)
+    @Mapping(target = "authorities", ignore = true)
+    User toEntity(UserDto userDto);
+}
@@ -0,0 +1,56 @@
+package com.subro.blog.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Records how many SQL statements each request issued in the {@code hibernate.statements.per.request}
+ * distribution, tagged like {@code http.server.requests} with the method and the URI template. Runs first,
+ * so the statements of the security filters are included. Requests that continue asynchronously, like the
+ * exports and logins, are not recorded because their statements run on another thread.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StatementCountFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        this.statementCounter.reset();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int statements = this.statementCounter.finish();
+            if (!request.isAsyncStarted()) {
+                Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                DistributionSummary.builder("hibernate.statements.per.request")
+                        .description("SQL statements prepared while handling a request")
+                        .baseUnit("statements")
+                        .tag("method", request.getMethod())
+                        .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                        .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50, 100)
+                        .register(this.meterRegistry)
+                        .record(statements);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.subro.blog.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread. Registered as the session factory's
+ * {@link StatementInspector} by {@code MetricsConfig}; {@link StatementCountFilter} resets it at the start
+ * of a request and reads it at the end.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    /**
+     * Starts counting from zero on the current thread.
+     */
+    public void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    /**
+     * Returns the number of statements prepared on the current thread since the last reset and stops counting.
+     *
+     * @return the number of statements
+     */
+    public int finish() {
+        int count = COUNT.get()[0];
+        COUNT.remove();
+        return count;
+    }
+}
@@ -0,0 +1,22 @@
+package com.subro.blog.payloads;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One comment of a bulk import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CommentImportRow {
+    @NotNull
+    private Integer postId;
+    @NotNull
+    private Integer userId;
+    @NotBlank
+    private String content;
+}
@@ -0,0 +1,17 @@
+package com.subro.blog.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorResponse<T> {
+    private List<T> content;
+    private String nextCursor;
+    private int limit;
+    private boolean lastPage;
+}
@@ -0,0 +1,43 @@
+package com.subro.blog.payloads;
+
+import com.subro.blog.exceptions.InvalidFieldsException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The attribute paths selected by a {@code fields} request parameter, e.g. {@code postTitle,user.name}.
+ */
+public record FieldSet(List<String> paths) {
+    /**
+     * Parses a comma separated list of field names. Every name must be one of the allowed selectors; a
+     * selector stands for one attribute path or, for an association such as {@code user}, for all of its
+     * exposed attribute paths.
+     *
+     * @param fields the comma separated field names
+     * @param selectors the allowed field names and the attribute paths each one selects
+     * @return the selected attribute paths, in request order and without duplicates
+     * @throws InvalidFieldsException if a field name is not allowed or no field is given
+     */
+    public static FieldSet parse(String fields, Map<String, List<String>> selectors) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            List<String> selected = selectors.get(name);
+            if (selected == null) {
+                throw new InvalidFieldsException("Unknown field '" + name + "', expected any of " + selectors.keySet());
+            }
+            paths.addAll(selected);
+        }
+        if (paths.isEmpty()) {
+            throw new InvalidFieldsException("No fields selected, expected any of " + selectors.keySet());
+        }
+        return new FieldSet(new ArrayList<>(paths));
+    }
+}
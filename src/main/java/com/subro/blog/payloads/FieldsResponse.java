@@ -0,0 +1,23 @@
+package com.subro.blog.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A page of sparse results, shaped like {@link PostResponse} with only the selected fields in its content.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FieldsResponse {
+    private List<Map<String, Object>> content;
+    private int pageNumber;
+    private int pageSize;
+    private long totalElements;
+    private int totalPages;
+    private boolean lastPage;
+}
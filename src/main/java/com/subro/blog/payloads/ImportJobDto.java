@@ -0,0 +1,41 @@
+package com.subro.blog.payloads;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Progress of a bulk import job.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobDto {
+    private long id;
+    private ImportType type;
+    private String file;
+    /**
+     * {@code RUNNING}, {@code COMPLETED} or {@code FAILED}.
+     */
+    private String status;
+    /**
+     * The number of records skipped because an earlier run of the same import committed them.
+     */
+    private long resumedFrom;
+    private long recordsRead;
+    private long recordsImported;
+    private long recordsRejected;
+    private long chunksCommitted;
+    private long bytesRead;
+    private long totalBytes;
+    /**
+     * The reasons the first rejected records were rejected for.
+     */
+    private List<String> errors;
+    private String failure;
+    private Date startedAt;
+    private Date finishedAt;
+}
@@ -0,0 +1,23 @@
+package com.subro.blog.payloads;
+
+/**
+ * The kinds of records a bulk import reads, each one per NDJSON line or CSV row.
+ */
+public enum ImportType {
+    USERS(UserDto.class),
+    POSTS(PostImportRow.class),
+    COMMENTS(CommentImportRow.class);
+
+    private final Class<?> rowType;
+
+    ImportType(Class<?> rowType) {
+        this.rowType = rowType;
+    }
+
+    /**
+     * @return the class the records of this type are read into and validated as
+     */
+    public Class<?> getRowType() {
+        return this.rowType;
+    }
+}
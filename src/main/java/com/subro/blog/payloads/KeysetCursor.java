@@ -0,0 +1,141 @@
+package com.subro.blog.payloads;
+
+import com.subro.blog.exceptions.InvalidCursorException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.io.*;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Opaque keyset cursor handed to clients as {@code ?after=}. It carries the sort it was
+ * created with and the key values of the last row of the previous slice, so the next slice
+ * is a seek on {@code (sortKey, id)} instead of an offset scan.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeysetCursor {
+    private static final byte INTEGER = 'i';
+    private static final byte LONG = 'l';
+    private static final byte DATE = 'd';
+    private static final byte STRING = 's';
+
+    private final String sortBy;
+    private final Sort.Direction direction;
+    private final Map<String, Object> keys;
+
+    /**
+     * Creates a cursor pointing before the first row of the given sort.
+     *
+     * @param sortBy the property to sort on
+     * @param sortDirection the direction of sorting, "asc" or "desc"
+     * @param allowedKeys the properties a cursor may seek on
+     * @return a cursor for the first slice
+     * @throws InvalidCursorException if the sort property is not allowed
+     */
+    public static KeysetCursor first(String sortBy, String sortDirection, Set<String> allowedKeys) {
+        if (!allowedKeys.contains(sortBy)) {
+            throw new InvalidCursorException("Cursor pagination does not support sorting by " + sortBy);
+        }
+        Sort.Direction direction = sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        return new KeysetCursor(sortBy, direction, Collections.emptyMap());
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode()}.
+     *
+     * @param cursor the opaque cursor string
+     * @param allowedKeys the properties a cursor may seek on
+     * @return the decoded cursor
+     * @throws InvalidCursorException if the cursor is malformed or refers to properties that are not allowed
+     */
+    public static KeysetCursor decode(String cursor, Set<String> allowedKeys) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            String sortBy = in.readUTF();
+            Sort.Direction direction = Sort.Direction.fromString(in.readUTF());
+            int size = in.readUnsignedByte();
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 0; i < size; i++) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                switch (type) {
+                    case INTEGER -> keys.put(name, in.readInt());
+                    case LONG -> keys.put(name, in.readLong());
+                    case DATE -> keys.put(name, new Date(in.readLong()));
+                    case STRING -> keys.put(name, in.readUTF());
+                    default -> throw new InvalidCursorException("Invalid cursor");
+                }
+            }
+            if (!allowedKeys.contains(sortBy) || !allowedKeys.containsAll(keys.keySet()) || !keys.containsKey(sortBy)) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new KeysetCursor(sortBy, direction, keys);
+        } catch (IOException | IllegalArgumentException ex) {
+            // not Base64, truncated, or with an unknown sort direction
+            throw new InvalidCursorException("Invalid cursor", ex);
+        }
+    }
+
+    /**
+     * Encodes this cursor into a URL-safe string.
+     *
+     * @return the opaque cursor string
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sortBy);
+            out.writeUTF(direction.name());
+            out.writeByte(keys.size());
+            for (Map.Entry<String, Object> key : keys.entrySet()) {
+                out.writeUTF(key.getKey());
+                Object value = key.getValue();
+                if (value instanceof Integer i) {
+                    out.writeByte(INTEGER);
+                    out.writeInt(i);
+                } else if (value instanceof Long l) {
+                    out.writeByte(LONG);
+                    out.writeLong(l);
+                } else if (value instanceof Date d) {
+                    out.writeByte(DATE);
+                    out.writeLong(d.getTime());
+                } else if (value instanceof String s) {
+                    out.writeByte(STRING);
+                    out.writeUTF(s);
+                } else {
+                    throw new IllegalStateException("Unsupported cursor key type: " + value);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Returns a cursor with the same sort positioned at the given scroll position.
+     *
+     * @param position the keyset position of the last row that was returned
+     * @return the cursor for the following slice
+     */
+    public KeysetCursor next(ScrollPosition position) {
+        return new KeysetCursor(sortBy, direction, new LinkedHashMap<>(((KeysetScrollPosition) position).getKeys()));
+    }
+
+    public ScrollPosition toScrollPosition() {
+        return keys.isEmpty() ? ScrollPosition.keyset() : ScrollPosition.forward(keys);
+    }
+
+    public Sort toSort() {
+        return Sort.by(direction, sortBy);
+    }
+}
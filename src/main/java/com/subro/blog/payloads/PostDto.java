@@ -20,9 +20,13 @@ public class PostDto {
     @Size(min=5)
     private String postContent;
     private String imageName;
+    private String thumbnailName;
     private Date addedDate;
     private UserDto user;
     private CategoryDto category;
-    private List<CommentDto> comments= new ArrayList<>();
+    private int commentCount;
+    private long version;
+    private Date lastModified;
+    private long viewCount;
 }
 
@@ -0,0 +1,30 @@
+package com.subro.blog.payloads;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * One post of a bulk import. The added date defaults to the time of the import.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostImportRow {
+    @NotNull
+    private Integer userId;
+    @NotNull
+    private Integer categoryId;
+    @NotEmpty
+    @Size(min = 5)
+    private String postTitle;
+    @NotEmpty
+    @Size(min = 5)
+    private String postContent;
+    private Date addedDate;
+}
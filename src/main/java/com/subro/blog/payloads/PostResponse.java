@@ -3,14 +3,12 @@ package com.subro.blog.payloads;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.stereotype.Component;
 
 import java.util.List;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Component
 public class PostResponse {
     private List<PostDto> content;
     private int pageNumber;
@@ -0,0 +1,63 @@
+package com.subro.blog.payloads;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * The version of a post, enough to answer a conditional request without loading the post.
+ * <p>
+ * The ETags derived from it are weak: the view count of a post changes without a new version, so two
+ * representations with the same ETag are equivalent but not necessarily identical.
+ */
+public record PostVersion(Integer postId, long version, Date lastModified) {
+    /**
+     * @param postDto the post
+     * @return the version of the post
+     */
+    public static PostVersion of(PostDto postDto) {
+        return new PostVersion(postDto.getPostId(), postDto.getVersion(), postDto.getLastModified());
+    }
+
+    /**
+     * @return the weak ETag of the post
+     */
+    public String eTag() {
+        return this.eTag("");
+    }
+
+    /**
+     * @param format the suffix of a representation other than JSON, e.g. {@code -cbor}, or empty for JSON
+     * @return the weak ETag of the post in the given representation
+     */
+    public String eTag(String format) {
+        return "W/\"" + this.postId + "-" + this.version + format + "\"";
+    }
+
+    /**
+     * Derives the weak ETag of a list of posts from their IDs and versions and the other details of the
+     * response, such as the page number and the total number of posts.
+     *
+     * @param versions the versions of the listed posts, in order
+     * @param details the other details of the response
+     * @return the weak ETag of the list
+     */
+    public static String eTag(List<PostVersion> versions, Object... details) {
+        StringBuilder key = new StringBuilder();
+        for (Object detail : details) {
+            key.append(detail).append('|');
+        }
+        for (PostVersion version : versions) {
+            key.append(version.postId()).append('-').append(version.version()).append(',');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8));
+            return "W/\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
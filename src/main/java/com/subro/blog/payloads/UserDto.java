@@ -1,5 +1,6 @@
 package com.subro.blog.payloads;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -23,6 +24,7 @@ public class UserDto {
     @NotNull(message = "Email must not be null")
     private String email;
 
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @NotNull(message = "Password must not be null")
     @NotBlank(message = "Password must not be blanked")
     @Size(min = 3, max = 10, message = "Password must contain between 3 to 10 characters")
@@ -2,6 +2,19 @@ package com.subro.blog.repositories;
 
 import com.subro.blog.entities.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
 
 public interface CategoryRepository extends JpaRepository<Category, Integer> {
+    /**
+     * Retrieves which of the given category IDs exist, without loading the categories.
+     *
+     * @param ids the category IDs to check
+     * @return the IDs of the existing categories
+     */
+    @Query("select c.categoryId from Category c where c.categoryId in :ids")
+    Set<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
@@ -1,7 +1,21 @@
 package com.subro.blog.repositories;
 
 import com.subro.blog.entities.Comment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
+    /**
+     * Retrieves a window of the comments on the given post positioned after the given keyset.
+     *
+     * @param postId the ID of the post
+     * @param position the keyset position to seek from
+     * @param sort the sort order
+     * @param limit the maximum number of comments in the window
+     * @return the window of comments
+     */
+    Window<Comment> findByPostPostId(Integer postId, ScrollPosition position, Sort sort, Limit limit);
 }
@@ -0,0 +1,112 @@
+package com.subro.blog.repositories;
+
+import com.subro.blog.payloads.FieldSet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Selects only the requested attributes of an entity with a tuple query. Associations are joined only when
+ * one of their attributes is selected, and no entity is loaded into the persistence context. Each row is
+ * returned as a map nesting the attributes of associations under the association name, so it serializes
+ * like the corresponding DTO with the other fields left out.
+ */
+@Repository
+public class FieldsQuery {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Retrieves the selected fields of the entities matching an optional filter.
+     *
+     * @param entityType the entity to query
+     * @param fields the attribute paths to select, at most one association deep
+     * @param filterPath the attribute path to filter on, e.g. {@code user.id}, or null for all entities
+     * @param filterValue the value the filter attribute must have
+     * @param pageable the page and sort, or an unpaged request for all matches
+     * @return the page of selected fields
+     */
+    public Page<Map<String, Object>> find(Class<?> entityType, FieldSet fields, String filterPath, Object filterValue, Pageable pageable) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<?> root = query.from(entityType);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+        query.multiselect(fields.paths().stream().<Selection<?>>map(field -> selectedPath(root, joins, field).alias(field)).toList());
+        if (filterPath != null) {
+            query.where(cb.equal(filteredPath(root, filterPath), filterValue));
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        TypedQuery<Tuple> typedQuery = this.entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields.paths()) {
+                put(row, field, tuple.get(field));
+            }
+            content.add(row);
+        }
+        return PageableExecutionUtils.getPage(content, pageable, () -> this.count(entityType, filterPath, filterValue));
+    }
+
+    private long count(Class<?> entityType, String filterPath, Object filterValue) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<?> root = query.from(entityType);
+        query.select(cb.count(root));
+        if (filterPath != null) {
+            query.where(cb.equal(filteredPath(root, filterPath), filterValue));
+        }
+        return this.entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static Path<?> selectedPath(Root<?> root, Map<String, From<?, ?>> joins, String field) {
+        int dot = field.indexOf('.');
+        if (dot < 0) {
+            return root.get(field);
+        }
+        String association = field.substring(0, dot);
+        return joins.computeIfAbsent(association, name -> root.join(name, JoinType.LEFT)).get(field.substring(dot + 1));
+    }
+
+    private static Path<?> filteredPath(Root<?> root, String filterPath) {
+        Path<?> path = root;
+        for (String attribute : filterPath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> row, String field, Object value) {
+        int dot = field.indexOf('.');
+        if (dot < 0) {
+            row.put(field, value);
+            return;
+        }
+        Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(field.substring(0, dot), name -> new LinkedHashMap<>());
+        nested.put(field.substring(dot + 1), value);
+    }
+}
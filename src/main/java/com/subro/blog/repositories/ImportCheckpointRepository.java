@@ -0,0 +1,7 @@
+package com.subro.blog.repositories;
+
+import com.subro.blog.entities.ImportCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportCheckpointRepository extends JpaRepository<ImportCheckpoint, String> {
+}
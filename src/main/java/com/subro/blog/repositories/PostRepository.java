@@ -1,39 +1,238 @@
 package com.subro.blog.repositories;
 
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.Category;
 import com.subro.blog.entities.Post;
 import com.subro.blog.entities.User;
+import com.subro.blog.payloads.PostVersion;
+import com.subro.blog.search.PostDocument;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+/**
+ * Repository for {@link Post}. The listing and lookup queries used to build {@code PostDto}s load the
+ * {@code Post.summary} entity graph, so the author and category come back in the same select and the
+ * comments and roles of a whole page are batch fetched instead of one select per post.
+ */
 public interface PostRepository extends JpaRepository<Post, Integer> {
+    /**
+     * Retrieves a page of posts together with their author and category.
+     *
+     * @param pageable the page request
+     * @return the page of posts
+     */
+    @Override
+    @EntityGraph("Post.summary")
+    Page<Post> findAll(Pageable pageable);
+    /**
+     * Retrieves a post by its ID together with its author and category.
+     *
+     * @param postId the ID of the post
+     * @return the post, or empty if no such post exists
+     */
+    @EntityGraph("Post.summary")
+    Optional<Post> findByPostId(Integer postId);
     /**
      * Retrieves a list of posts written by the given user.
      * @param user the user
-     * @return the list of posts
+     * @return the list of posts ordered by ID
      */
-    List<Post> findByUser(User user);
+    @EntityGraph("Post.summary")
+    List<Post> findByUserOrderByPostIdAsc(User user);
     /**
      * Retrieves a list of posts associated with the given category.
      * @param category the category
-     * @return the list of posts
+     * @return the list of posts ordered by ID
+     */
+    @EntityGraph("Post.summary")
+    List<Post> findByCategoryOrderByPostIdAsc(Category category);
+    /**
+     * Retrieves a window of posts positioned after the given keyset.
+     *
+     * @param position the keyset position to seek from
+     * @param sort the sort order, the post ID is appended as tie-breaker
+     * @param limit the maximum number of posts in the window
+     * @return the window of posts
+     */
+    @EntityGraph("Post.summary")
+    Window<Post> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+    /**
+     * Retrieves a window of posts written by the given user positioned after the given keyset.
+     *
+     * @param user the user
+     * @param position the keyset position to seek from
+     * @param sort the sort order, the post ID is appended as tie-breaker
+     * @param limit the maximum number of posts in the window
+     * @return the window of posts
+     */
+    @EntityGraph("Post.summary")
+    Window<Post> findByUser(User user, ScrollPosition position, Sort sort, Limit limit);
+    /**
+     * Retrieves a window of posts associated with the given category positioned after the given keyset.
+     *
+     * @param category the category
+     * @param position the keyset position to seek from
+     * @param sort the sort order, the post ID is appended as tie-breaker
+     * @param limit the maximum number of posts in the window
+     * @return the window of posts
+     */
+    @EntityGraph("Post.summary")
+    Window<Post> findByCategory(Category category, ScrollPosition position, Sort sort, Limit limit);
+    /**
+     * Streams all posts together with their author and category, ordered by ID. The rows are read from an
+     * open cursor {@value AppConstants#EXPORT_FETCH_SIZE} at a time; the stream must be consumed and closed
+     * inside a transaction.
+     *
+     * @return the stream of posts
+     */
+    @Query("select p from Post p join fetch p.user join fetch p.category order by p.postId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamAll();
+    /**
+     * Streams the posts written by the given user together with their author and category, ordered by ID.
+     *
+     * @param user the user
+     * @return the stream of posts
+     * @see #streamAll()
+     */
+    @Query("select p from Post p join fetch p.user join fetch p.category where p.user = :user order by p.postId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamByUser(@Param("user") User user);
+    /**
+     * Streams the posts associated with the given category together with their author and category, ordered by ID.
+     *
+     * @param category the category
+     * @return the stream of posts
+     * @see #streamAll()
+     */
+    @Query("select p from Post p join fetch p.user join fetch p.category where p.category = :category order by p.postId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = AppConstants.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Post> streamByCategory(@Param("category") Category category);
+    /**
+     * Retrieves the posts with the given IDs, used to load one page of search results.
+     *
+     * @param postIds the IDs of the posts
+     * @return the posts, in no particular order
+     */
+    @EntityGraph("Post.summary")
+    List<Post> findByPostIdIn(Collection<Integer> postIds);
+    /**
+     * Retrieves the searchable fields of the posts following the given post ID, used to rebuild the search index.
+     *
+     * @param postId the ID after which to start
+     * @param limit the maximum number of posts to return
+     * @return the posts ordered by ID
+     */
+    List<PostDocument> findByPostIdGreaterThanOrderByPostIdAsc(Integer postId, Limit limit);
+    /**
+     * Adds the given delta to the comment count of a post in a single update, without loading the post.
+     * The version and modification time of the post are bumped along.
+     *
+     * @param postId the ID of the post
+     * @param delta the number of comments added, negative for removed comments
+     * @return the number of updated posts, 0 if no such post exists
+     */
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + :delta, p.version = p.version + 1, p.lastModified = current_timestamp where p.postId = :postId")
+    int adjustCommentCount(@Param("postId") Integer postId, @Param("delta") int delta);
+    /**
+     * Adds a comment to the comment count of a post, but only if the post was written by the given user, in
+     * a single update without loading the post. The version and modification time of the post are bumped
+     * along.
+     *
+     * @param postId the ID of the post
+     * @param userId the ID of the user who must have written the post
+     * @return the number of updated posts, 0 if no such post written by the user exists
+     */
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + 1, p.version = p.version + 1, p.lastModified = current_timestamp where p.postId = :postId and p.user.id = :userId")
+    int incrementCommentCount(@Param("postId") Integer postId, @Param("userId") Integer userId);
+    /**
+     * Bumps the version and modification time of every post written by the given user, whose details are
+     * embedded in the posts.
+     *
+     * @param userId the ID of the user
+     * @return the number of updated posts
+     */
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1, p.lastModified = current_timestamp where p.user.id = :userId")
+    int touchByUserId(@Param("userId") Integer userId);
+    /**
+     * Bumps the version and modification time of every post in the given category, whose details are
+     * embedded in the posts.
+     *
+     * @param categoryId the ID of the category
+     * @return the number of updated posts
+     */
+    @Modifying
+    @Query("update Post p set p.version = p.version + 1, p.lastModified = current_timestamp where p.category.categoryId = :categoryId")
+    int touchByCategoryId(@Param("categoryId") Integer categoryId);
+    /**
+     * Retrieves the version of a post without loading the post.
+     *
+     * @param postId the ID of the post
+     * @return the version of the post, or empty if no such post exists
+     */
+    @Query("select new com.subro.blog.payloads.PostVersion(p.postId, p.version, p.lastModified) from Post p where p.postId = :postId")
+    Optional<PostVersion> findVersionByPostId(@Param("postId") Integer postId);
+    /**
+     * Retrieves the versions of a page of posts without loading the posts.
+     *
+     * @param pageable the page request
+     * @return the page of post versions
+     */
+    @Query(value = "select new com.subro.blog.payloads.PostVersion(p.postId, p.version, p.lastModified) from Post p",
+            countQuery = "select count(p) from Post p")
+    Page<PostVersion> findVersionsBy(Pageable pageable);
+    /**
+     * Retrieves the versions of the posts written by the given user without loading the posts.
+     *
+     * @param userId the ID of the user
+     * @return the post versions ordered by post ID
      */
-    List<Post> findByCategory(Category category);
+    @Query("select new com.subro.blog.payloads.PostVersion(p.postId, p.version, p.lastModified) from Post p where p.user.id = :userId order by p.postId")
+    List<PostVersion> findVersionsByUserId(@Param("userId") Integer userId);
     /**
-     * Retrieves a list of posts with titles containing the specified keyword.
+     * Retrieves the versions of the posts associated with the given category without loading the posts.
      *
-     * @param title the keyword to search for in post titles
-     * @return the list of posts with titles containing the keyword
+     * @param categoryId the ID of the category
+     * @return the post versions ordered by post ID
      */
-    List<Post> findByPostTitleContaining(String title);
+    @Query("select new com.subro.blog.payloads.PostVersion(p.postId, p.version, p.lastModified) from Post p where p.category.categoryId = :categoryId order by p.postId")
+    List<PostVersion> findVersionsByCategoryId(@Param("categoryId") Integer categoryId);
     /**
-     * Retrieves a post by its ID and the ID of the user who wrote it.
+     * Retrieves which of the given post IDs exist, without loading the posts.
      *
-     * @param postId the ID of the post to retrieve
-     * @param userId the ID of the user who wrote the post
-     * @return the post with the given ID and written by the given user, or empty if no such post exists
+     * @param ids the post IDs to check
+     * @return the IDs of the existing posts
      */
-    Optional<Post> findByPostIdAndUserId(Integer postId, Integer userId);
+    @Query("select p.postId from Post p where p.postId in :ids")
+    Set<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
 }
@@ -0,0 +1,91 @@
+package com.subro.blog.repositories;
+
+import com.subro.blog.entities.Post;
+import com.subro.blog.payloads.KeysetCursor;
+import com.subro.blog.payloads.PostVersion;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seeks the versions of a keyset-paginated slice of posts, the same rows the {@code Window} queries of
+ * {@link PostRepository} return for a cursor, but reading only the ID, version and modification time of
+ * each post. Like those queries it sorts on the sort key of the cursor with the post ID as ascending
+ * tie-breaker and seeks past the keys the cursor carries.
+ */
+@Repository
+public class PostVersionQuery {
+    private static final String ID = "postId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Retrieves the versions of the posts in the slice following the given cursor.
+     *
+     * @param filterPath the attribute path to filter on, e.g. {@code user.id}, or null for all posts
+     * @param filterValue the value the filter attribute must have
+     * @param cursor the cursor of the slice
+     * @param limit the maximum number of posts in the slice
+     * @return the versions in slice order, one more than the limit if another slice follows
+     */
+    public List<PostVersion> find(String filterPath, Object filterValue, KeysetCursor cursor, int limit) {
+        CriteriaBuilder cb = this.entityManager.getCriteriaBuilder();
+        CriteriaQuery<PostVersion> query = cb.createQuery(PostVersion.class);
+        Root<Post> root = query.from(Post.class);
+        query.select(cb.construct(PostVersion.class, root.get(ID), root.get("version"), root.get("lastModified")));
+        Sort sort = cursor.getSortBy().equals(ID) ? cursor.toSort() : cursor.toSort().and(Sort.by(ID));
+        List<Predicate> where = new ArrayList<>();
+        if (filterPath != null) {
+            where.add(cb.equal(filteredPath(root, filterPath), filterValue));
+        }
+        if (!cursor.getKeys().isEmpty()) {
+            where.add(seek(cb, root, sort.toList(), cursor.getKeys()));
+        }
+        query.where(where.toArray(Predicate[]::new));
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return this.entityManager.createQuery(query).setMaxResults(limit + 1).getResultList();
+    }
+
+    /**
+     * Matches the rows after the given keys: for some sort key, all earlier keys equal and this one past it.
+     */
+    private static Predicate seek(CriteriaBuilder cb, Root<Post> root, List<Sort.Order> orders, Map<String, Object> keys) {
+        List<Predicate> alternatives = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            List<Predicate> conjunction = new ArrayList<>();
+            for (Sort.Order earlier : orders.subList(0, i)) {
+                conjunction.add(cb.equal(root.get(earlier.getProperty()), keys.get(earlier.getProperty())));
+            }
+            conjunction.add(past(cb, root, orders.get(i), keys.get(orders.get(i).getProperty())));
+            alternatives.add(cb.and(conjunction.toArray(Predicate[]::new)));
+        }
+        return cb.or(alternatives.toArray(Predicate[]::new));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Predicate past(CriteriaBuilder cb, Root<Post> root, Sort.Order order, Object key) {
+        Expression<Comparable> path = root.get(order.getProperty());
+        return order.isAscending() ? cb.greaterThan(path, (Comparable) key) : cb.lessThan(path, (Comparable) key);
+    }
+
+    private static Path<?> filteredPath(Root<?> root, String filterPath) {
+        Path<?> path = root;
+        for (String attribute : filterPath.split("\\.")) {
+            path = path.get(attribute);
+        }
+        return path;
+    }
+}
@@ -1,9 +1,14 @@
 package com.subro.blog.repositories;
 
 import com.subro.blog.entities.User;
+import com.subro.blog.payloads.UserDto;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserRepository extends JpaRepository<User, Integer> {
     /**
@@ -13,4 +18,20 @@ public interface UserRepository extends JpaRepository<User, Integer> {
      * @return the user with the given email address, or empty if no such user exists
      */
     Optional<User> findByEmail(String email);
+    /**
+     * Retrieves which of the given user IDs exist, without loading the users.
+     *
+     * @param ids the user IDs to check
+     * @return the IDs of the existing users
+     */
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+    /**
+     * Retrieves the details of a user as embedded in a post, without loading the user and their roles.
+     *
+     * @param id the ID of the user
+     * @return the details of the user, or empty if no such user exists
+     */
+    @Query("select new com.subro.blog.payloads.UserDto(u.id, u.name, u.email, u.password, u.about) from User u where u.id = :id")
+    Optional<UserDto> findDtoById(@Param("id") Integer id);
 }
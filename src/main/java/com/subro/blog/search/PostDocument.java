@@ -0,0 +1,7 @@
+package com.subro.blog.search;
+
+/**
+ * The fields of a post that are indexed for search.
+ */
+public record PostDocument(Integer postId, String postTitle, String postContent) {
+}
@@ -0,0 +1,361 @@
+package com.subro.blog.search;
+
+import com.subro.blog.entities.Post;
+import com.subro.blog.repositories.PostRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over post titles and contents.
+ * <p>
+ * Every term maps to the posts containing it and the (title boosted) term frequency in each post, held in
+ * sorted {@code int} arrays rather than boxed maps. Queries are ranked with BM25 and every query term of at
+ * least {@value #MIN_PREFIX_LENGTH} characters also matches the indexed terms it is a prefix of, so "pagin"
+ * finds posts about pagination; a prefix expands to at most {@value #MAX_EXPANSIONS} terms, those found in
+ * the most posts. Only the hits up to the requested page are ranked.
+ * <p>
+ * The index is built from the database when the application is ready and kept current by the services on
+ * every create, update and delete of a post, including the posts deleted along with their user or category.
+ * Changes made in a transaction are applied once it commits, so a rollback leaves the index as it was. A
+ * rebuild fills a new index while searches keep using the current one, and replays the changes made in the
+ * meantime before swapping it in.
+ */
+@Component
+public class PostSearchIndex {
+    private static final Logger log = LoggerFactory.getLogger(PostSearchIndex.class);
+    private static final int TITLE_BOOST = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final Comparator<Map.Entry<Integer, Double>> RELEVANCE =
+            Map.Entry.<Integer, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    @Autowired
+    private PostRepository postRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    /** The term frequencies of the posts changed while a rebuild runs, {@code null} for removed posts. */
+    private Map<Integer, Map<String, Integer>> changedDuringRebuild;
+
+    /**
+     * Rebuilds the index from all posts in the database, reading them in batches of title and content only.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            this.changedDuringRebuild = new HashMap<>();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        Index rebuilt = new Index();
+        try {
+            int lastPostId = 0;
+            List<PostDocument> batch;
+            do {
+                batch = this.postRepository.findByPostIdGreaterThanOrderByPostIdAsc(lastPostId, Limit.of(REBUILD_BATCH_SIZE));
+                for (PostDocument document : batch) {
+                    rebuilt.add(document.postId(), frequencies(document.postTitle(), document.postContent()));
+                    lastPostId = document.postId();
+                }
+            } while (batch.size() == REBUILD_BATCH_SIZE);
+        } catch (RuntimeException ex) {
+            this.lock.writeLock().lock();
+            try {
+                this.changedDuringRebuild = null;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        this.lock.writeLock().lock();
+        try {
+            this.changedDuringRebuild.forEach((postId, frequencies) -> {
+                if (frequencies == null) {
+                    rebuilt.remove(postId);
+                } else {
+                    rebuilt.add(postId, frequencies);
+                }
+            });
+            this.changedDuringRebuild = null;
+            this.index = rebuilt;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        log.info("Indexed {} posts for search", rebuilt.documents.size());
+    }
+
+    /**
+     * Adds the post to the index once the current transaction commits, right away without a transaction,
+     * replacing whatever was indexed for it before.
+     *
+     * @param post the post to index
+     */
+    public void index(Post post) {
+        this.index(post.getPostId(), post.getPostTitle(), post.getPostContent());
+    }
+
+    /**
+     * Adds a post to the index once the current transaction commits, right away without a transaction,
+     * replacing whatever was indexed for it before.
+     *
+     * @param postId the ID of the post
+     * @param title the title of the post
+     * @param content the content of the post
+     */
+    public void index(Integer postId, String title, String content) {
+        Map<String, Integer> frequencies = frequencies(title, content);
+        afterCommit(() -> this.apply(postId, frequencies));
+    }
+
+    /**
+     * Removes a post from the index once the current transaction commits, right away without a transaction.
+     *
+     * @param postId the ID of the post to remove
+     */
+    public void remove(Integer postId) {
+        afterCommit(() -> this.apply(postId, null));
+    }
+
+    private void apply(Integer postId, Map<String, Integer> frequencies) {
+        this.lock.writeLock().lock();
+        try {
+            if (frequencies == null) {
+                this.index.remove(postId);
+            } else {
+                this.index.add(postId, frequencies);
+            }
+            if (this.changedDuringRebuild != null) {
+                this.changedDuringRebuild.put(postId, frequencies);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Searches the index and returns one page of post IDs ordered by relevance.
+     *
+     * @param query the search keywords
+     * @param pageNumber the page number, starting at 0
+     * @param pageSize the page size, at least 1
+     * @return the page of matching post IDs, most relevant first
+     * @throws IllegalArgumentException if the page number is negative or the page size is not positive
+     */
+    public Page<Integer> search(String query, int pageNumber, int pageSize) {
+        if (pageNumber < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page " + pageNumber + " of size " + pageSize);
+        }
+        Set<String> queryTerms = new LinkedHashSet<>(tokenize(query));
+        Map<Integer, Double> scores = new HashMap<>();
+
+        this.lock.readLock().lock();
+        try {
+            Index index = this.index;
+            int documents = index.documents.size();
+            double averageLength = documents == 0 ? 0 : (double) index.totalLength / documents;
+            for (String queryTerm : queryTerms) {
+                for (Postings postings : index.expand(queryTerm)) {
+                    double idf = Math.log(1 + (documents - postings.size + 0.5) / (postings.size + 0.5));
+                    for (int i = 0; i < postings.size; i++) {
+                        int postId = postings.postIds[i];
+                        int frequency = postings.frequencies[i];
+                        double norm = K1 * (1 - B + B * index.documents.get(postId).length() / averageLength);
+                        scores.merge(postId, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        List<Integer> ranked = top(scores, (int) Math.min((long) (pageNumber + 1) * pageSize, scores.size()));
+        int from = (int) Math.min((long) pageNumber * pageSize, ranked.size());
+        return new PageImpl<>(ranked.subList(from, ranked.size()), PageRequest.of(pageNumber, pageSize), scores.size());
+    }
+
+    /**
+     * Selects the given number of most relevant posts with a bounded heap instead of sorting all hits.
+     */
+    private static List<Integer> top(Map<Integer, Double> scores, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(count, RELEVANCE.reversed());
+        for (Map.Entry<Integer, Double> score : scores.entrySet()) {
+            if (top.size() < count) {
+                top.add(score);
+            } else if (RELEVANCE.compare(score, top.peek()) < 0) {
+                top.poll();
+                top.add(score);
+            }
+        }
+        Integer[] ranked = new Integer[top.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = top.poll().getKey();
+        }
+        return Arrays.asList(ranked);
+    }
+
+    private static Map<String, Integer> frequencies(String title, String content) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String term : tokenize(title)) {
+            frequencies.merge(term, TITLE_BOOST, Integer::sum);
+        }
+        for (String term : tokenize(content)) {
+            frequencies.merge(term, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    private static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * The postings of all terms and the terms and length of every post.
+     */
+    private static final class Index {
+        private final NavigableMap<String, Postings> postings = new TreeMap<>();
+        private final Map<Integer, Document> documents = new HashMap<>();
+        private long totalLength;
+
+        private void add(Integer postId, Map<String, Integer> frequencies) {
+            this.remove(postId);
+            Postings[] terms = new Postings[frequencies.size()];
+            int length = 0;
+            int i = 0;
+            for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+                Postings postings = this.postings.computeIfAbsent(frequency.getKey(), Postings::new);
+                postings.put(postId, frequency.getValue());
+                terms[i++] = postings;
+                length += frequency.getValue();
+            }
+            this.documents.put(postId, new Document(terms, length));
+            this.totalLength += length;
+        }
+
+        private void remove(Integer postId) {
+            Document document = this.documents.remove(postId);
+            if (document == null) {
+                return;
+            }
+            for (Postings postings : document.terms()) {
+                postings.remove(postId);
+                if (postings.size == 0) {
+                    this.postings.remove(postings.term);
+                }
+            }
+            this.totalLength -= document.length();
+        }
+
+        /**
+         * Returns the postings of the term itself and, for a term long enough to be a prefix, of the indexed
+         * terms it is a prefix of that are found in the most posts.
+         */
+        private List<Postings> expand(String term) {
+            Postings exact = this.postings.get(term);
+            List<Postings> expanded = new ArrayList<>();
+            if (exact != null) {
+                expanded.add(exact);
+            }
+            if (term.length() < MIN_PREFIX_LENGTH) {
+                return expanded;
+            }
+            PriorityQueue<Postings> mostFound = new PriorityQueue<>(Comparator.comparingInt(postings -> postings.size));
+            for (Postings postings : this.postings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+                mostFound.add(postings);
+                if (mostFound.size() > MAX_EXPANSIONS - expanded.size()) {
+                    mostFound.poll();
+                }
+            }
+            expanded.addAll(mostFound);
+            return expanded;
+        }
+    }
+
+    private record Document(Postings[] terms, int length) {
+    }
+
+    /**
+     * The IDs of the posts containing a term, in ascending order, and the term frequency in each.
+     */
+    private static final class Postings {
+        private final String term;
+        private int[] postIds = new int[1];
+        private int[] frequencies = new int[1];
+        private int size;
+
+        private Postings(String term) {
+            this.term = term;
+        }
+
+        private void put(int postId, int frequency) {
+            int index = Arrays.binarySearch(this.postIds, 0, this.size, postId);
+            if (index >= 0) {
+                this.frequencies[index] = frequency;
+                return;
+            }
+            index = -index - 1;
+            if (this.size == this.postIds.length) {
+                int capacity = this.size + (this.size >> 1) + 1;
+                this.postIds = Arrays.copyOf(this.postIds, capacity);
+                this.frequencies = Arrays.copyOf(this.frequencies, capacity);
+            }
+            System.arraycopy(this.postIds, index, this.postIds, index + 1, this.size - index);
+            System.arraycopy(this.frequencies, index, this.frequencies, index + 1, this.size - index);
+            this.postIds[index] = postId;
+            this.frequencies[index] = frequency;
+            this.size++;
+        }
+
+        private void remove(int postId) {
+            int index = Arrays.binarySearch(this.postIds, 0, this.size, postId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(this.postIds, index + 1, this.postIds, index, this.size - index - 1);
+            System.arraycopy(this.frequencies, index + 1, this.frequencies, index, this.size - index - 1);
+            this.size--;
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.subro.blog.security;
 
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.User;
 import com.subro.blog.exceptions.ResourceNotFoundException;
 import com.subro.blog.repositories.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
@@ -16,12 +19,19 @@ public class CustomUserDetailsService implements UserDetailsService {
     private UserRepository userRepository;
     /**
      * Loads user by username from the database and returns UserDetails object.
+     * <p>
+     * Resolved users are kept in the short-lived principal cache so that authenticated requests do not
+     * hit the database; {@code UserServiceImpl} evicts the cache whenever a user is changed or deleted.
+     * Cache misses are read in a read-write transaction, so they always go to the primary database and never
+     * authenticate against a replica that has not seen a changed password or a deleted user yet.
      *
      * @param username the username to search for
      * @return UserDetails object
      * @throws UsernameNotFoundException if no user is found with the given username
      */
     @Override
+    @Cacheable(cacheNames = AppConstants.PRINCIPAL_CACHE, key = "#username")
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         // Loading user from database by username
         User user = this.userRepository.findByEmail(username).orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + username));
@@ -1,6 +1,8 @@
 package com.subro.blog.security;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.MalformedJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -42,26 +44,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 
         String jwt = authHeader.substring(7);
-        String username = null;
+        Claims claims;
 
+        // the token is parsed and verified exactly once per request
         try {
-            username = jwtTokenHelper.extractUsername(jwt);
+            claims = jwtTokenHelper.parseClaims(jwt);
         } catch (ExpiredJwtException ex) {
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token expired");
             return;
         } catch (MalformedJwtException ex) {
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed token");
             return;
-        } catch (IllegalArgumentException ex) {
+        } catch (JwtException | IllegalArgumentException ex) {
             response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
             return;
         }
+        String username = claims.getSubject();
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
+                // served from the short-lived principal cache, see CustomUserDetailsService
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-                if (jwtTokenHelper.validateToken(jwt, userDetails)) {
+                if (jwtTokenHelper.validateToken(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -1,9 +1,11 @@
 package com.subro.blog.services;
 
 import com.subro.blog.payloads.CommentDto;
+import com.subro.blog.payloads.CursorResponse;
 
 public interface CommentService {
     public CommentDto createComment(CommentDto commentDto, Integer postId, Integer userId);
     public void deleteComment(Integer commentId);
+    public CursorResponse<CommentDto> getCommentsByPost(Integer postId, String after, Integer limit);
 
 }
\ No newline at end of file
@@ -1,12 +1,54 @@
 package com.subro.blog.services;
 
+import com.subro.blog.config.AppConstants;
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 
 public interface FileService {
     String uploadImage(String path, MultipartFile multipartFile) throws IOException;
-    InputStream getResource(String path, String fileName) throws FileNotFoundException;
+    Resource getResource(String path, String fileName) throws FileNotFoundException;
+
+    /**
+     * Releases the memory held for a file and its thumbnail, e.g. once a post's image has been replaced.
+     * The files themselves are kept, as they are shared by every post with the same image.
+     *
+     * @param path the path where the file is located
+     * @param fileName the name of the file
+     */
+    void evictResource(String path, String fileName);
+
+    /**
+     * Returns the name under which the thumbnail of the given image is stored.
+     *
+     * @param imageName the name of the original image
+     * @return the name of its thumbnail, or null if there is no image
+     */
+    static String thumbnailNameOf(String imageName) {
+        if (imageName == null) {
+            return null;
+        }
+        int dot = imageName.lastIndexOf('.');
+        return dot < 0
+                ? imageName + AppConstants.THUMBNAIL_SUFFIX
+                : imageName.substring(0, dot) + AppConstants.THUMBNAIL_SUFFIX + imageName.substring(dot);
+    }
+
+    /**
+     * Returns the name of the original image of the given thumbnail.
+     *
+     * @param fileName the name of a stored file
+     * @return the name of the original image, or null if the file is not a thumbnail
+     */
+    static String originalNameOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String base = dot < 0 ? fileName : fileName.substring(0, dot);
+        if (!base.endsWith(AppConstants.THUMBNAIL_SUFFIX)) {
+            return null;
+        }
+        return base.substring(0, base.length() - AppConstants.THUMBNAIL_SUFFIX.length())
+                + (dot < 0 ? "" : fileName.substring(dot));
+    }
 }
@@ -0,0 +1,13 @@
+package com.subro.blog.services;
+
+import com.subro.blog.payloads.ImportJobDto;
+import com.subro.blog.payloads.ImportType;
+
+import java.io.IOException;
+import java.util.List;
+
+public interface ImportService {
+    public ImportJobDto startImport(ImportType type, String fileName) throws IOException;
+    public ImportJobDto getImport(long jobId);
+    public List<ImportJobDto> getImports();
+}
@@ -1,21 +1,48 @@
 package com.subro.blog.services;
 
 import com.subro.blog.entities.Post;
+import com.subro.blog.payloads.CursorResponse;
+import com.subro.blog.payloads.FieldsResponse;
 import com.subro.blog.payloads.PostDto;
 import com.subro.blog.payloads.PostResponse;
+import com.subro.blog.payloads.PostVersion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 
 public interface PostService {
 
     PostDto createPost(PostDto postDto, Integer userId, Integer categoryId);
+    List<PostDto> createPosts(List<PostDto> postDtos, Integer userId, Integer categoryId);
 
     PostDto updatePost(PostDto postDto, Integer postId);
+    PostDto updatePostImage(Integer postId, String imageName);
     void deletePost(Integer postId);
     PostResponse getAllPosts(Integer pageNumber, Integer pageSize, String sortBy, String sortDirection);
+    CursorResponse<PostDto> getAllPosts(String after, Integer limit, String sortBy, String sortDirection);
     PostDto getPostById(Integer postId);
+    PostVersion getPostVersion(Integer postId);
+    Page<PostVersion> getAllPostVersions(Integer pageNumber, Integer pageSize, String sortBy, String sortDirection);
+    Slice<PostVersion> getAllPostVersions(String after, Integer limit, String sortBy, String sortDirection);
     List<PostDto> getPostsByCategory(Integer categoryId);
+    CursorResponse<PostDto> getPostsByCategory(Integer categoryId, String after, Integer limit);
+    List<PostVersion> getPostVersionsByCategory(Integer categoryId);
+    Slice<PostVersion> getPostVersionsByCategory(Integer categoryId, String after, Integer limit);
     List<PostDto> getPostsByUser(Integer userId);
-    List<PostDto> searchPostByTitle(String keyword);
+    CursorResponse<PostDto> getPostsByUser(Integer userId, String after, Integer limit);
+    List<PostVersion> getPostVersionsByUser(Integer userId);
+    Slice<PostVersion> getPostVersionsByUser(Integer userId, String after, Integer limit);
+    Map<String, Object> getPostFields(Integer postId, String fields);
+    FieldsResponse getAllPostFields(String fields, Integer pageNumber, Integer pageSize, String sortBy, String sortDirection);
+    List<Map<String, Object>> getPostFieldsByCategory(Integer categoryId, String fields);
+    List<Map<String, Object>> getPostFieldsByUser(Integer userId, String fields);
+    PostResponse searchPosts(String keywords, Integer pageNumber, Integer pageSize);
+    void exportPosts(OutputStream out) throws IOException;
+    void exportPostsByCategory(Integer categoryId, OutputStream out) throws IOException;
+    void exportPostsByUser(Integer userId, OutputStream out) throws IOException;
 
 }
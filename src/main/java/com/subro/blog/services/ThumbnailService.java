@@ -0,0 +1,5 @@
+package com.subro.blog.services;
+
+public interface ThumbnailService {
+    void requestThumbnail(String path, String imageName);
+}
@@ -3,12 +3,15 @@ package com.subro.blog.services;
 import com.subro.blog.payloads.UserDto;
 
 import java.util.List;
+import java.util.Map;
 
 public interface UserService {
     UserDto createUser(UserDto user);
     UserDto updateUser(UserDto user, Integer userId);
     UserDto getUserById(Integer userId);
     List<UserDto> getAllUsers();
+    Map<String, Object> getUserFields(Integer userId, String fields);
+    List<Map<String, Object>> getAllUserFields(String fields);
     void deleteUser(Integer userId);
 
 }
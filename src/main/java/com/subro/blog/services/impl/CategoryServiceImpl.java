@@ -1,23 +1,40 @@
 package com.subro.blog.services.impl;
 
+import com.subro.blog.cache.CategoryNearCache;
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Post;
 import com.subro.blog.exceptions.ResourceNotFoundException;
+import com.subro.blog.mappers.CategoryMapper;
 import com.subro.blog.payloads.CategoryDto;
 import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.search.PostSearchIndex;
 import com.subro.blog.services.CategoryService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * Read-only transactions by default, see {@link PostServiceImpl}.
+ */
 @Service
+@Transactional(readOnly = true)
 public class CategoryServiceImpl implements CategoryService {
     @Autowired
     private CategoryRepository categoryRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private PostRepository postRepository;
+    @Autowired
+    private CategoryMapper categoryMapper;
+    @Autowired
+    private CategoryNearCache categoryNearCache;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
     /**
      * Creates a new category.
      *
@@ -25,14 +42,18 @@ public class CategoryServiceImpl implements CategoryService {
      * @return A ResponseEntity containing the created CategoryDto and HTTP status CREATED.
      */
     @Override
+    @Transactional
     public CategoryDto createCategory(CategoryDto categoryDto) {
-        Category category = this.modelMapper.map(categoryDto, Category.class);
+        Category category = this.categoryMapper.toEntity(categoryDto);
         Category savedCategory = this.categoryRepository.save(category);
-        return this.modelMapper.map(savedCategory, CategoryDto.class);
+        CategoryDto savedCategoryDto = this.categoryMapper.toDto(savedCategory);
+        this.categoryNearCache.put(savedCategoryDto);
+        return savedCategoryDto;
     }
 
     /**
-     * Updates an existing category identified by its ID with the new details provided.
+     * Updates an existing category identified by its ID with the new details provided. The posts in the
+     * category embed it, so their versions are bumped and the post cache is cleared.
      *
      * @param categoryDto The DTO containing the new details of the category to be updated.
      * @param categoryId  The ID of the category to be updated.
@@ -40,30 +61,41 @@ public class CategoryServiceImpl implements CategoryService {
      * @throws ResourceNotFoundException if the category with the specified ID does not exist.
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, allEntries = true)
     public CategoryDto updateCategory(CategoryDto categoryDto, Integer categoryId) {
         Category category = this.categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
         category.setCategoryTitle(categoryDto.getCategoryTitle());
         category.setCategoryDescription(categoryDto.getCategoryDescription());
-        Category updatedCategory = categoryRepository.save(category);
-        return this.modelMapper.map(updatedCategory, CategoryDto.class);
+        this.postRepository.touchByCategoryId(categoryId);
+        CategoryDto updatedCategoryDto = this.categoryMapper.toDto(category);
+        this.categoryNearCache.put(updatedCategoryDto);
+        return updatedCategoryDto;
     }
 
     /**
-     * Deletes a category identified by its ID.
+     * Deletes a category identified by its ID, along with its posts, which are removed from the search index
+     * and the post cache.
      *
      * @param categoryId the ID of the category to be deleted.
      * @throws ResourceNotFoundException if the category with the specified ID does not exist.
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, allEntries = true)
     public void deleteCategory(Integer categoryId) {
         Category category = this.categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
+        // the cascade loads the posts to delete them anyway
+        List<Integer> postIds = category.getPosts().stream().map(Post::getPostId).collect(Collectors.toList());
         this.categoryRepository.delete(category);
+        postIds.forEach(this.postSearchIndex::remove);
+        this.categoryNearCache.evict(categoryId);
     }
 
     /**
-     * Retrieves a category identified by its ID.
+     * Retrieves a category identified by its ID from the {@link CategoryNearCache}.
      *
      * @param categoryId The ID of the category to be retrieved.
      * @return A CategoryDto containing the details of the category.
@@ -71,9 +103,8 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public CategoryDto getCategoryById(Integer categoryId) {
-        Category category = this.categoryRepository.findById(categoryId)
+        return this.categoryNearCache.get(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
-        return this.modelMapper.map(category, CategoryDto.class);
     }
 
     /**
@@ -84,6 +115,6 @@ public class CategoryServiceImpl implements CategoryService {
     @Override
     public List<CategoryDto> getAllCategories() {
         List<Category> categories = this.categoryRepository.findAll();
-        return categories.stream().map(category -> this.modelMapper.map(category, CategoryDto.class)).collect(Collectors.toList());
+        return categories.stream().map(category -> this.categoryMapper.toDto(category)).collect(Collectors.toList());
     }
 }
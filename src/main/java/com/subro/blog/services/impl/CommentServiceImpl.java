@@ -1,20 +1,36 @@
 package com.subro.blog.services.impl;
 
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.Comment;
-import com.subro.blog.entities.Post;
-import com.subro.blog.entities.User;
+import com.subro.blog.exceptions.InvalidCursorException;
 import com.subro.blog.exceptions.ResourceNotFoundException;
+import com.subro.blog.mappers.CommentMapper;
 import com.subro.blog.payloads.CommentDto;
+import com.subro.blog.payloads.CursorResponse;
+import com.subro.blog.payloads.KeysetCursor;
 import com.subro.blog.repositories.CommentRepository;
 import com.subro.blog.repositories.PostRepository;
 import com.subro.blog.repositories.UserRepository;
 import com.subro.blog.services.CommentService;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read-only transactions by default, see {@link PostServiceImpl}.
+ */
 @Service
+@Transactional(readOnly = true)
 public class CommentServiceImpl implements CommentService {
+    private static final Set<String> CURSOR_KEYS = Set.of("id");
 
     @Autowired
     private PostRepository postRepository;
@@ -23,9 +39,15 @@ public class CommentServiceImpl implements CommentService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private CommentMapper commentMapper;
+    @Autowired
+    private CacheManager cacheManager;
     /**
-     * Creates a new comment for a given post by a given user.
+     * Creates a new comment for a given post by a given user and increments the comment count of the post.
+     * <p>
+     * The post is not loaded: the rowcount of the comment count update tells whether the post exists and
+     * was written by the user, which also proves that the user exists. The comment is then inserted with
+     * references to both.
      *
      * @param commentDto the comment data transfer object
      * @param postId the ID of the post to which the comment is being added
@@ -34,26 +56,57 @@ public class CommentServiceImpl implements CommentService {
      * @throws ResourceNotFoundException if the post or user does not exist
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, key = "#postId")
     public CommentDto createComment(CommentDto commentDto, Integer postId, Integer userId) {
-        Post post=this.postRepository.findByPostIdAndUserId(postId, userId).orElseThrow(()->new ResourceNotFoundException("Post", "Post Id", postId));
-        User user = this.userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
-
-        Comment comment = this.modelMapper.map(commentDto, Comment.class);
-        comment.setPost(post);
-        comment.setUser(user);
+        if (this.postRepository.incrementCommentCount(postId, userId) == 0) {
+            throw new ResourceNotFoundException("Post", "Post Id", postId);
+        }
+        Comment comment = this.commentMapper.toEntity(commentDto);
+        comment.setPost(this.postRepository.getReferenceById(postId));
+        comment.setUser(this.userRepository.getReferenceById(userId));
         Comment savedComment = this.commentRepository.save(comment);
-        return this.modelMapper.map(savedComment, CommentDto.class);
+        return this.commentMapper.toDto(savedComment);
     }
 
     /**
-     * Deletes a comment identified by its ID.
+     * Deletes a comment identified by its ID and decrements the comment count of its post.
      *
      * @param commentId the ID of the comment to be deleted
      * @throws ResourceNotFoundException if the comment does not exist
      */
     @Override
+    @Transactional
     public void deleteComment(Integer commentId) {
         Comment comment = this.commentRepository.findById(commentId).orElseThrow(() -> new ResourceNotFoundException("Comment", "Comment Id", commentId));
+        Integer postId = comment.getPost().getPostId();
         this.commentRepository.delete(comment);
+        this.postRepository.adjustCommentCount(postId, -1);
+        this.cacheManager.getCache(AppConstants.POST_CACHE).evict(postId);
+    }
+
+    /**
+     * Retrieves a slice of the comments on a post, oldest first, using keyset pagination.
+     *
+     * @param postId the ID of the post whose comments are to be retrieved
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of comments in the slice, default is 10
+     * @return a CursorResponse containing the comments and the cursor of the next slice
+     * @throws ResourceNotFoundException if the post does not exist
+     * @throws InvalidCursorException if the cursor is invalid
+     */
+    @Override
+    public CursorResponse<CommentDto> getCommentsByPost(Integer postId, String after, Integer limit) {
+        if (!this.postRepository.existsById(postId)) {
+            throw new ResourceNotFoundException("Post", "Post Id", postId);
+        }
+        KeysetCursor cursor = (after == null || after.isBlank()) ? KeysetCursor.first("id", "asc", CURSOR_KEYS)
+                : KeysetCursor.decode(after, CURSOR_KEYS);
+        int cursorLimit = limit == null ? Integer.parseInt(AppConstants.PAGE_SIZE) : Math.max(1, Math.min(limit, AppConstants.MAX_PAGE_SIZE));
+        Window<Comment> window = this.commentRepository.findByPostPostId(postId, cursor.toScrollPosition(), cursor.toSort(), Limit.of(cursorLimit));
+        List<CommentDto> commentDtoList = window.getContent().stream()
+                .map(comment -> this.commentMapper.toDto(comment)).collect(Collectors.toList());
+        String nextCursor = window.hasNext() ? cursor.next(window.positionAt(window.size() - 1)).encode() : null;
+        return new CursorResponse<>(commentDtoList, nextCursor, cursorLimit, !window.hasNext());
     }
 }
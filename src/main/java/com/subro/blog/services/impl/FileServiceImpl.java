@@ -1,50 +1,162 @@
 package com.subro.blog.services.impl;
 
+import com.subro.blog.exceptions.UnsupportedImageException;
+import com.subro.blog.images.ImageCache;
 import com.subro.blog.services.FileService;
+import com.subro.blog.services.ThumbnailService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @Service
 public class FileServiceImpl implements FileService {
+    @Autowired
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private ImageCache imageCache;
+
     /**
      * Uploads a file to the specified path and returns the name of the file which can be used to retrieve the file.
+     * <p>
+     * Files are stored content-addressed: the upload is hashed with SHA-256 while it is streamed to a
+     * temporary file and then stored as {@code <sha256>.<extension>}. The extension is derived from the leading
+     * bytes of the content, never from the client's file name, so only PNG, JPEG, GIF and WebP images are
+     * stored and each is served with the content type of its actual format. Uploading an image that is already
+     * stored discards the copy and returns the existing name, so identical images are kept on disk once.
+     * A thumbnail of the image is generated in the background.
      *
      * @param path the path where the file is to be uploaded
      * @param multipartFile the file which is to be uploaded
      * @return the name of the uploaded file
      * @throws IOException
+     * @throws UnsupportedImageException if the file is not a PNG, JPEG, GIF or WebP image
      */
     @Override
     public String uploadImage(String path, MultipartFile multipartFile) throws IOException {
-        String name=multipartFile.getOriginalFilename();
-        String randomId= UUID.randomUUID().toString();
-        String fileName=randomId.concat(name.substring(name.lastIndexOf(".")));
-        String fullPath=path + File.separator +fileName;
-        File f=new File(path);
-        if(!f.exists()){
-            f.mkdir();
-        }
-        Files.copy(multipartFile.getInputStream(), Paths.get(fullPath));
-        return fileName;
+        Path directory = Paths.get(path);
+        Files.createDirectories(directory);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+        Path temp = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            try (InputStream in = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String fileName = HexFormat.of().formatHex(digest.digest()).concat(extensionOf(temp));
+            Path file = directory.resolve(fileName);
+            if (!Files.exists(file)) {
+                try {
+                    Files.move(temp, file);
+                } catch (FileAlreadyExistsException ex) {
+                    // the same image was stored concurrently
+                }
+            }
+            this.thumbnailService.requestThumbnail(path, fileName);
+            return fileName;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
     }
 
     /**
-     * Returns an InputStream of a file from the specified path.
+     * Returns a file from the specified path as a {@link Resource}. Recently served images are returned from
+     * the off-heap {@link ImageCache}; others are read into it, unless they are too large to be cached, in
+     * which case nothing is opened here and the file is only read when the resource is written. Either way
+     * the caller can answer range and conditional requests from the resource.
+     * <p>
+     * A thumbnail that has not been generated yet is requested again and the original image is returned
+     * in its place; callers can tell by the file name of the returned resource.
      *
      * @param path the path where the file is located
      * @param fileName the name of the file which is to be retrieved
-     * @return an InputStream of the file
-     * @throws FileNotFoundException if the file is not found
+     * @return the file as a Resource
+     * @throws FileNotFoundException if the file is not found or lies outside of the given path
+     */
+    @Override
+    public Resource getResource(String path, String fileName) throws FileNotFoundException {
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory)) {
+            throw new FileNotFoundException("Image not found: " + fileName);
+        }
+        if (!Files.isRegularFile(file)) {
+            String originalName = FileService.originalNameOf(fileName);
+            if (originalName == null) {
+                throw new FileNotFoundException("Image not found: " + fileName);
+            }
+            Resource original = this.getResource(path, originalName);
+            this.thumbnailService.requestThumbnail(path, originalName);
+            return original;
+        }
+        return this.imageCache.get(file);
+    }
+
+    /**
+     * Evicts the file and its thumbnail from the {@link ImageCache}.
+     *
+     * @param path the path where the file is located
+     * @param fileName the name of the file
      */
     @Override
-    public InputStream getResource(String path, String fileName) throws FileNotFoundException {
-        String fullPath=path+File.separator+fileName;
-        InputStream inputStream=new FileInputStream(fullPath);
-        return inputStream;
+    public void evictResource(String path, String fileName) {
+        if (fileName == null) {
+            return;
+        }
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        this.imageCache.evict(directory.resolve(fileName).normalize());
+        this.imageCache.evict(directory.resolve(FileService.thumbnailNameOf(fileName)).normalize());
+    }
+
+    /**
+     * Identifies the image format from the magic bytes at the start of the file.
+     */
+    private static String extensionOf(Path file) throws IOException {
+        byte[] header = new byte[12];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(header, 0, header.length);
+        }
+        if (startsWith(header, read, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return ".png";
+        }
+        if (startsWith(header, read, 0, 0xFF, 0xD8, 0xFF)) {
+            return ".jpg";
+        }
+        if (startsWith(header, read, 0, 'G', 'I', 'F', '8')) {
+            return ".gif";
+        }
+        if (startsWith(header, read, 0, 'R', 'I', 'F', 'F') && startsWith(header, read, 8, 'W', 'E', 'B', 'P')) {
+            return ".webp";
+        }
+        throw new UnsupportedImageException("Only PNG, JPEG, GIF and WebP images can be uploaded");
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, int... magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((header[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
     }
 }
@@ -0,0 +1,487 @@
+package com.subro.blog.services.impl;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.entities.Comment;
+import com.subro.blog.entities.ImportCheckpoint;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.exceptions.ResourceNotFoundException;
+import com.subro.blog.mappers.UserMapper;
+import com.subro.blog.payloads.CommentImportRow;
+import com.subro.blog.payloads.ImportJobDto;
+import com.subro.blog.payloads.ImportType;
+import com.subro.blog.payloads.PostImportRow;
+import com.subro.blog.payloads.UserDto;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.CommentRepository;
+import com.subro.blog.repositories.ImportCheckpointRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
+import com.subro.blog.services.ImportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports users, posts and comments from NDJSON ({@code .ndjson}, {@code .jsonl}) or CSV ({@code .csv}, with a
+ * header row naming the fields) files in the import directory.
+ * <p>
+ * A reader thread parses the file one record at a time, validates every record and hands chunks of
+ * {@code blog.import.chunk-size} records to the writer over a queue of {@code blog.import.queue-chunks}
+ * chunks, so a fast reader blocks instead of buffering the file in memory. The writer commits every chunk
+ * in its own transaction with JDBC batching and clears the persistence context afterwards. The
+ * {@link ImportCheckpoint} of the import is updated in the same transaction, so an import of the same file
+ * that failed or was interrupted resumes after the last committed chunk.
+ * <p>
+ * Invalid records and records referring to missing users, categories or posts are rejected and reported
+ * without stopping the import; a record that cannot be parsed fails it.
+ */
+@Service
+public class ImportServiceImpl implements ImportService {
+    private static final Logger log = LoggerFactory.getLogger(ImportServiceImpl.class);
+    private static final int REPORTED_ERRORS = 100;
+    private static final Chunk END_OF_INPUT = new Chunk(List.of(), -1);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ExecutorService importExecutor;
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private PostRepository postRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private UserMapper userMapper;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private CacheManager cacheManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+    @Value("${blog.import.directory}")
+    private String importDirectory;
+    @Value("${blog.import.chunk-size}")
+    private int chunkSize;
+    @Value("${blog.import.queue-chunks}")
+    private int queueChunks;
+
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicReference<ImportJob> runningJob = new AtomicReference<>();
+    private final CustomizableThreadFactory readerThreads = new CustomizableThreadFactory("import-reader-");
+
+    /**
+     * Starts importing the given file in the background. Only one import runs at a time.
+     *
+     * @param type the type of the records in the file
+     * @param fileName the name of the file in the import directory
+     * @return the progress of the started import
+     * @throws FileNotFoundException if the file does not exist in the import directory
+     * @throws RejectedExecutionException if another import is still running
+     */
+    @Override
+    public ImportJobDto startImport(ImportType type, String fileName) throws IOException {
+        Path directory = Paths.get(this.importDirectory).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new FileNotFoundException("Import file not found: " + fileName);
+        }
+        ImportJob job = new ImportJob(this.jobIds.incrementAndGet(), type, fileName, Files.size(file));
+        if (!this.runningJob.compareAndSet(null, job)) {
+            throw new RejectedExecutionException("Import " + this.runningJob.get().id + " is still running");
+        }
+        try {
+            this.importExecutor.execute(() -> this.run(job, file));
+        } catch (RejectedExecutionException ex) {
+            this.runningJob.set(null);
+            throw ex;
+        }
+        this.jobs.put(job.id, job);
+        return job.toDto();
+    }
+
+    /**
+     * Retrieves the progress of an import started since the application started.
+     *
+     * @param jobId the ID of the import
+     * @return the progress of the import
+     * @throws ResourceNotFoundException if no such import exists
+     */
+    @Override
+    public ImportJobDto getImport(long jobId) {
+        ImportJob job = this.jobs.get(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import", "Job Id", jobId);
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Retrieves the progress of all imports started since the application started, latest first.
+     *
+     * @return the progress of the imports
+     */
+    @Override
+    public List<ImportJobDto> getImports() {
+        return this.jobs.values().stream()
+                .sorted(Comparator.comparingLong((ImportJob job) -> job.id).reversed())
+                .map(ImportJob::toDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Runs an import on the import executor, which writes the chunks, and a reader thread of its own. The
+     * import is released only once the reader has stopped, and its result is reported only after that, so a
+     * client that sees the result can start the next import right away.
+     */
+    private void run(ImportJob job, Path file) {
+        String jobKey = job.type + ":" + job.file;
+        Throwable failure = null;
+        try {
+            ImportCheckpoint checkpoint = this.importCheckpointRepository.findById(jobKey)
+                    .orElseGet(() -> new ImportCheckpoint(jobKey, 0));
+            job.resumedFrom = checkpoint.getRecordsProcessed();
+            log.info("Import {} of {} {} started after record {}", job.id, job.type, job.file, job.resumedFrom);
+
+            BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(this.queueChunks);
+            AtomicReference<Exception> readFailure = new AtomicReference<>();
+            Thread reader = this.readerThreads.newThread(() -> {
+                try {
+                    this.read(job, file, checkpoint.getRecordsProcessed(), chunks);
+                } catch (Exception ex) {
+                    readFailure.set(ex);
+                }
+            });
+            reader.start();
+            boolean drained = false;
+            try {
+                for (Chunk chunk = chunks.take(); chunk != END_OF_INPUT; chunk = chunks.take()) {
+                    this.write(job, checkpoint, chunk);
+                }
+                drained = true;
+            } finally {
+                if (!drained) {
+                    reader.interrupt();
+                }
+                reader.join();
+            }
+            failure = readFailure.get();
+            if (failure == null) {
+                this.importCheckpointRepository.deleteById(jobKey);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            failure = ex;
+        } catch (RuntimeException ex) {
+            failure = ex;
+        } finally {
+            this.runningJob.set(null);
+        }
+        if (failure == null) {
+            job.finish("COMPLETED", null);
+            log.info("Import {} completed: {} records imported, {} rejected", job.id, job.recordsImported, job.recordsRejected);
+        } else {
+            this.fail(job, failure);
+        }
+    }
+
+    private void fail(ImportJob job, Throwable failure) {
+        job.finish("FAILED", String.valueOf(failure.getMessage()));
+        log.error("Import {} failed after {} committed records, it resumes from there when restarted",
+                job.id, job.resumedFrom + job.recordsCommitted, failure);
+    }
+
+    /**
+     * Parses and validates the file, skipping the records committed by an earlier run, and queues the valid
+     * records in chunks. Always queues {@link #END_OF_INPUT} last so the writer stops. When reading fails or is
+     * cancelled because the writer failed, the queued chunks are dropped instead of waiting for a writer that
+     * may no longer take them; they were not committed, so a restarted import reads them again.
+     */
+    private void read(ImportJob job, Path file, long skip, BlockingQueue<Chunk> chunks) throws IOException, InterruptedException {
+        boolean completed = false;
+        try (InputStream in = new CountingInputStream(Files.newInputStream(file), job.bytesRead);
+             MappingIterator<Object> records = this.readerFor(job.type, file).readValues(in)) {
+            long position = 0;
+            List<Row> rows = new ArrayList<>();
+            while (records.hasNextValue()) {
+                Object record = records.nextValue();
+                if (++position <= skip) {
+                    continue;
+                }
+                job.recordsRead++;
+                Set<ConstraintViolation<Object>> violations = this.validator.validate(record);
+                if (violations.isEmpty()) {
+                    rows.add(new Row(position, record));
+                } else {
+                    job.reject(position, violations.stream()
+                            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", ")));
+                }
+                if ((position - skip) % this.chunkSize == 0) {
+                    chunks.put(new Chunk(rows, position));
+                    rows = new ArrayList<>();
+                }
+            }
+            if ((position - skip) % this.chunkSize != 0) {
+                chunks.put(new Chunk(rows, position));
+            }
+            completed = true;
+        } finally {
+            if (completed) {
+                chunks.put(END_OF_INPUT);
+            } else {
+                chunks.clear();
+                chunks.offer(END_OF_INPUT);
+            }
+        }
+    }
+
+    private ObjectReader readerFor(ImportType type, Path file) {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+            return this.csvMapper.readerFor(type.getRowType()).with(CsvSchema.emptySchema().withHeader());
+        }
+        return this.objectMapper.readerFor(type.getRowType());
+    }
+
+    /**
+     * Saves one chunk and advances the checkpoint in a single transaction.
+     */
+    private void write(ImportJob job, ImportCheckpoint checkpoint, Chunk chunk) {
+        List<?> saved = new TransactionTemplate(this.transactionManager).execute(status -> {
+            List<?> entities = switch (job.type) {
+                case USERS -> this.saveUsers(chunk.rows());
+                case POSTS -> this.savePosts(job, chunk.rows());
+                case COMMENTS -> this.saveComments(job, chunk.rows());
+            };
+            checkpoint.setRecordsProcessed(chunk.endPosition());
+            this.importCheckpointRepository.save(checkpoint);
+            this.entityManager.flush();
+            this.entityManager.clear();
+            return entities;
+        });
+        if (job.type == ImportType.POSTS) {
+            saved.forEach(post -> this.postSearchIndex.index((Post) post));
+        } else if (job.type == ImportType.COMMENTS) {
+            Cache posts = this.cacheManager.getCache(AppConstants.POST_CACHE);
+            saved.stream().map(comment -> ((Comment) comment).getPost().getPostId()).distinct().forEach(posts::evict);
+        }
+        job.recordsImported += saved.size();
+        job.recordsCommitted = chunk.endPosition() - job.resumedFrom;
+        job.chunksCommitted++;
+        log.debug("Import {} committed {} records", job.id, job.resumedFrom + job.recordsCommitted);
+    }
+
+    private List<User> saveUsers(List<Row> rows) {
+        List<User> users = rows.stream().map(row -> {
+            User user = this.userMapper.toEntity((UserDto) row.value());
+            user.setId(0);
+            return user;
+        }).collect(Collectors.toList());
+        return this.userRepository.saveAll(users);
+    }
+
+    private List<Post> savePosts(ImportJob job, List<Row> rows) {
+        Set<Integer> userIds = this.userRepository.findExistingIds(distinct(rows, PostImportRow.class, PostImportRow::getUserId));
+        Set<Integer> categoryIds = this.categoryRepository.findExistingIds(distinct(rows, PostImportRow.class, PostImportRow::getCategoryId));
+        Date now = new Date();
+        List<Post> posts = new ArrayList<>();
+        for (Row row : rows) {
+            PostImportRow postRow = (PostImportRow) row.value();
+            if (!userIds.contains(postRow.getUserId())) {
+                job.reject(row.position(), "User not found with User Id: " + postRow.getUserId());
+            } else if (!categoryIds.contains(postRow.getCategoryId())) {
+                job.reject(row.position(), "Category not found with Category Id: " + postRow.getCategoryId());
+            } else {
+                Post post = new Post();
+                post.setPostTitle(postRow.getPostTitle());
+                post.setPostContent(postRow.getPostContent());
+                post.setImageName("default.png");
+                post.setAddedDate(postRow.getAddedDate() == null ? now : postRow.getAddedDate());
+                post.setUser(this.userRepository.getReferenceById(postRow.getUserId()));
+                post.setCategory(this.categoryRepository.getReferenceById(postRow.getCategoryId()));
+                posts.add(post);
+            }
+        }
+        return this.postRepository.saveAll(posts);
+    }
+
+    private List<Comment> saveComments(ImportJob job, List<Row> rows) {
+        Set<Integer> postIds = this.postRepository.findExistingIds(distinct(rows, CommentImportRow.class, CommentImportRow::getPostId));
+        Set<Integer> userIds = this.userRepository.findExistingIds(distinct(rows, CommentImportRow.class, CommentImportRow::getUserId));
+        List<Comment> comments = new ArrayList<>();
+        for (Row row : rows) {
+            CommentImportRow commentRow = (CommentImportRow) row.value();
+            if (!postIds.contains(commentRow.getPostId())) {
+                job.reject(row.position(), "Post not found with Post Id: " + commentRow.getPostId());
+            } else if (!userIds.contains(commentRow.getUserId())) {
+                job.reject(row.position(), "User not found with User Id: " + commentRow.getUserId());
+            } else {
+                Comment comment = new Comment();
+                comment.setContent(commentRow.getContent());
+                comment.setPost(this.postRepository.getReferenceById(commentRow.getPostId()));
+                comment.setUser(this.userRepository.getReferenceById(commentRow.getUserId()));
+                comments.add(comment);
+            }
+        }
+        List<Comment> savedComments = this.commentRepository.saveAll(comments);
+        savedComments.stream()
+                .collect(Collectors.groupingBy(comment -> comment.getPost().getPostId(), Collectors.counting()))
+                .forEach((postId, count) -> this.postRepository.adjustCommentCount(postId, count.intValue()));
+        return savedComments;
+    }
+
+    private static <T> Collection<Integer> distinct(List<Row> rows, Class<T> rowType, Function<T, Integer> id) {
+        return rows.stream().map(row -> id.apply(rowType.cast(row.value()))).collect(Collectors.toSet());
+    }
+
+    private record Row(long position, Object value) {
+    }
+
+    /**
+     * The valid records of one chunk and the position of the last record read for it, valid or not.
+     */
+    private record Chunk(List<Row> rows, long endPosition) {
+    }
+
+    /**
+     * Progress of a running import. The reader thread updates the read and rejected counts, the writer
+     * thread the commit counts; status requests only read them.
+     */
+    private static final class ImportJob {
+        private final long id;
+        private final ImportType type;
+        private final String file;
+        private final long totalBytes;
+        private final Date startedAt = new Date();
+        private final AtomicLong bytesRead = new AtomicLong();
+        private final AtomicLong recordsRejected = new AtomicLong();
+        private final List<String> errors = new ArrayList<>();
+        private volatile long resumedFrom;
+        private volatile long recordsRead;
+        private volatile long recordsCommitted;
+        private volatile long recordsImported;
+        private volatile long chunksCommitted;
+        private volatile String status = "RUNNING";
+        private volatile String failure;
+        private volatile Date finishedAt;
+
+        private ImportJob(long id, ImportType type, String file, long totalBytes) {
+            this.id = id;
+            this.type = type;
+            this.file = file;
+            this.totalBytes = totalBytes;
+        }
+
+        private void reject(long position, String reason) {
+            this.recordsRejected.incrementAndGet();
+            synchronized (this.errors) {
+                if (this.errors.size() < REPORTED_ERRORS) {
+                    this.errors.add("Record " + position + ": " + reason);
+                }
+            }
+        }
+
+        private void finish(String status, String failure) {
+            this.failure = failure;
+            this.finishedAt = new Date();
+            this.status = status;
+        }
+
+        private ImportJobDto toDto() {
+            List<String> reportedErrors;
+            synchronized (this.errors) {
+                reportedErrors = List.copyOf(this.errors);
+            }
+            return new ImportJobDto(this.id, this.type, this.file, this.status, this.resumedFrom, this.recordsRead,
+                    this.recordsImported, this.recordsRejected.get(), this.chunksCommitted, this.bytesRead.get(),
+                    this.totalBytes, reportedErrors, this.failure, this.startedAt, this.finishedAt);
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file, which is how far the import has progressed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong count;
+
+        private CountingInputStream(InputStream in, AtomicLong count) {
+            super(in);
+            this.count = count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                this.count.incrementAndGet();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                this.count.addAndGet(n);
+            }
+            return n;
+        }
+    }
+}
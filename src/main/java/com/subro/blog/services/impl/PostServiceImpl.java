@@ -1,44 +1,110 @@
 package com.subro.blog.services.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.subro.blog.cache.CategoryNearCache;
+import com.subro.blog.config.AppConstants;
 import com.subro.blog.entities.Category;
 import com.subro.blog.entities.Post;
 import com.subro.blog.entities.User;
+import com.subro.blog.exceptions.InvalidCursorException;
+import com.subro.blog.exceptions.InvalidFieldsException;
 import com.subro.blog.exceptions.ResourceNotFoundException;
+import com.subro.blog.mappers.PostMapper;
+import com.subro.blog.payloads.CategoryDto;
+import com.subro.blog.payloads.CursorResponse;
+import com.subro.blog.payloads.FieldSet;
+import com.subro.blog.payloads.FieldsResponse;
+import com.subro.blog.payloads.KeysetCursor;
 import com.subro.blog.payloads.PostDto;
 import com.subro.blog.payloads.PostResponse;
+import com.subro.blog.payloads.PostVersion;
+import com.subro.blog.payloads.UserDto;
 import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.FieldsQuery;
 import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.PostVersionQuery;
 import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
 import com.subro.blog.services.PostService;
-import org.modelmapper.ModelMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Every method runs in a transaction, read-only unless it writes. Read-only transactions flush manually and
+ * load entities read-only, so Hibernate keeps no snapshots of them and skips dirty checking at commit;
+ * updates change the managed entity and leave writing it to the dirty check at commit.
+ */
 @Service
-
+@Transactional(readOnly = true)
 public class PostServiceImpl implements PostService {
+    private static final List<String> USER_FIELDS = List.of("user.id", "user.name", "user.email", "user.about");
+    private static final List<String> CATEGORY_FIELDS = List.of("category.categoryId", "category.categoryTitle", "category.categoryDescription");
+    /**
+     * The fields a client can select with {@code ?fields=}; {@code user} and {@code category} select all of
+     * their fields.
+     */
+    private static final Map<String, List<String>> POST_FIELDS = postFields();
+    private static final Set<String> CURSOR_KEYS = Set.of("postId", "postTitle", "addedDate");
+
     @Autowired
     private PostRepository postRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private PostMapper postMapper;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private CategoryRepository categoryRepository;
     @Autowired
-    private PostResponse postResponse;
+    private CategoryNearCache categoryNearCache;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private FieldsQuery fieldsQuery;
+    @Autowired
+    private PostVersionQuery postVersionQuery;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @PersistenceContext
+    private EntityManager entityManager;
 
 
     /**
      * Creates a new post with the provided details under the specified user and category.
+     * <p>
+     * Neither the user nor the category is loaded: the category is checked against the
+     * {@link CategoryNearCache}, the details of the user are read with one narrow select, which also checks
+     * that the user exists, and both are attached as references. The insert is flushed right away: a category
+     * deleted through another instance since the last reload of the near cache fails it, and is then reported
+     * as missing.
      *
      * @param postDto the data transfer object containing the details of the post to be created
      * @param userId the ID of the user who is creating the post
@@ -47,18 +113,76 @@ public class PostServiceImpl implements PostService {
      * @throws ResourceNotFoundException if the user or category specified by their ID does not exist
      */
     @Override
+    @Transactional
     public PostDto createPost(PostDto postDto, Integer userId, Integer categoryId) {
-        User user = this.userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
-        Category category = this.categoryRepository.findById(categoryId)
+        CategoryDto category = this.categoryNearCache.get(categoryId)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
-        Post post = this.modelMapper.map(postDto, Post.class);
+        UserDto author = this.authorOf(userId);
+        Post post = this.postMapper.toEntity(postDto);
         post.setImageName("default.png");
         post.setAddedDate(new Date());
-        post.setUser(user);
-        post.setCategory(category);
-        Post savedPost = this.postRepository.save(post);
-        return this.modelMapper.map(savedPost, PostDto.class);
+        post.setUser(this.userRepository.getReferenceById(userId));
+        post.setCategory(this.categoryRepository.getReferenceById(categoryId));
+        this.postRepository.save(post);
+        this.flushNewPosts(categoryId);
+        this.postSearchIndex.index(post);
+        return this.postMapper.toDto(post, author, category);
+    }
+
+    /**
+     * Creates many posts under the specified user and category in one transaction. Post IDs are allocated
+     * from a pooled sequence, so the inserts are sent to the database in JDBC batches instead of one round
+     * trip per post. The user and category are attached as references, as in
+     * {@link #createPost(PostDto, Integer, Integer)}.
+     *
+     * @param postDtos the details of the posts to be created
+     * @param userId the ID of the user who is creating the posts
+     * @param categoryId the ID of the category under which the posts are to be categorized
+     * @return the saved posts, in the order they were given
+     * @throws ResourceNotFoundException if the user or category specified by their ID does not exist
+     */
+    @Override
+    @Transactional
+    public List<PostDto> createPosts(List<PostDto> postDtos, Integer userId, Integer categoryId) {
+        CategoryDto category = this.categoryNearCache.get(categoryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
+        UserDto author = this.authorOf(userId);
+        User user = this.userRepository.getReferenceById(userId);
+        Category categoryReference = this.categoryRepository.getReferenceById(categoryId);
+        Date addedDate = new Date();
+        List<Post> posts = postDtos.stream().map(postDto -> {
+            Post post = this.postMapper.toEntity(postDto);
+            post.setImageName("default.png");
+            post.setAddedDate(addedDate);
+            post.setUser(user);
+            post.setCategory(categoryReference);
+            return post;
+        }).collect(Collectors.toList());
+        List<Post> savedPosts = this.postRepository.saveAll(posts);
+        this.flushNewPosts(categoryId);
+        savedPosts.forEach(this.postSearchIndex::index);
+        return savedPosts.stream().map(post -> this.postMapper.toDto(post, author, category)).collect(Collectors.toList());
+    }
+
+    /**
+     * Sends the pending inserts. When they fail, the category may have been deleted behind the near cache, so
+     * it is dropped from the near cache and looked up again outside this transaction; any other violation,
+     * such as a content too long for its column, is rethrown.
+     */
+    private void flushNewPosts(Integer categoryId) {
+        try {
+            this.postRepository.flush();
+        } catch (DataIntegrityViolationException ex) {
+            if (this.categoryNearCache.reload(categoryId).isEmpty()) {
+                throw new ResourceNotFoundException("Category", "Category Id", categoryId);
+            }
+            throw ex;
+        }
+    }
+
+    private UserDto authorOf(Integer userId) {
+        return this.userRepository.findDtoById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
     }
 
     /**
@@ -70,14 +194,37 @@ public class PostServiceImpl implements PostService {
      * @throws ResourceNotFoundException if the post with the specified ID does not exist
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, key = "#postId")
     public PostDto updatePost(PostDto postDto, Integer postId) {
-        Post post = this.postRepository.findById(postId)
+        Post post = this.postRepository.findByPostId(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
         post.setPostTitle(postDto.getPostTitle());
         post.setPostContent(postDto.getPostContent());
         post.setImageName(postDto.getImageName());
-        this.postRepository.save(post);
-        return this.modelMapper.map(post, PostDto.class);
+        // flushed here so that the response carries the new version and modification time
+        this.postRepository.flush();
+        this.postSearchIndex.index(post);
+        return this.postMapper.toDto(post);
+    }
+
+    /**
+     * Replaces the image of a post.
+     *
+     * @param postId the ID of the post whose image is replaced
+     * @param imageName the name of the stored image
+     * @return a PostDto containing the updated post details
+     * @throws ResourceNotFoundException if the post with the specified ID does not exist
+     */
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, key = "#postId")
+    public PostDto updatePostImage(Integer postId, String imageName) {
+        Post post = this.postRepository.findByPostId(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+        post.setImageName(imageName);
+        this.postRepository.flush();
+        return this.postMapper.toDto(post);
     }
 
     /**
@@ -87,10 +234,13 @@ public class PostServiceImpl implements PostService {
      * @throws ResourceNotFoundException if the post with the specified ID does not exist
      */
     @Override
+    @Transactional
+    @CacheEvict(cacheNames = AppConstants.POST_CACHE, key = "#postId")
     public void deletePost(Integer postId) {
         Post post = this.postRepository.findById(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
         this.postRepository.delete(post);
+        this.postSearchIndex.remove(postId);
     }
 
     /**
@@ -111,30 +261,93 @@ public class PostServiceImpl implements PostService {
         PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, sort);
         Page<Post> pagePostList = this.postRepository.findAll(pageRequest);
         List<Post> postList = pagePostList.getContent();
-        List<PostDto> postDtoList = postList.stream().map(post -> this.modelMapper.map(post, PostDto.class))
+        List<PostDto> postDtoList = postList.stream().map(post -> this.postMapper.toDto(post))
                 .collect(Collectors.toList());
 
-        postResponse.setContent(postDtoList);
-        postResponse.setPageNumber(pagePostList.getNumber());
-        postResponse.setPageSize(pagePostList.getSize());
-        postResponse.setTotalElements(pagePostList.getTotalElements());
-        postResponse.setTotalPages(pagePostList.getTotalPages());
-        postResponse.setLastPage(pagePostList.isLast());
-        return postResponse;
+        return new PostResponse(postDtoList, pagePostList.getNumber(), pagePostList.getSize(),
+                pagePostList.getTotalElements(), pagePostList.getTotalPages(), pagePostList.isLast());
     }
 
     /**
-     * Retrieves a post by its ID.
+     * Retrieves a slice of all posts using keyset pagination. The first slice is requested without a cursor;
+     * each following slice is requested with the cursor returned by the previous one, which also carries the
+     * sort, so the cost of a slice does not depend on how deep the client has scrolled.
+     *
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @param sortBy the field to sort the posts on, one of postId, postTitle or addedDate
+     * @param sortDirection the direction of sorting
+     * @return a CursorResponse containing the posts and the cursor of the next slice
+     * @throws InvalidCursorException if the cursor is invalid or the sort field is not supported
+     */
+    @Override
+    public CursorResponse<PostDto> getAllPosts(String after, Integer limit, String sortBy, String sortDirection) {
+        KeysetCursor cursor = this.cursorOf(after, sortBy, sortDirection);
+        int cursorLimit = this.cursorLimit(limit);
+        Window<Post> window = this.postRepository.findAllBy(cursor.toScrollPosition(), cursor.toSort(), Limit.of(cursorLimit));
+        return this.toCursorResponse(window, cursor, cursorLimit);
+    }
+
+    /**
+     * Retrieves a post by its ID. Posts are served from the local post cache, which is evicted whenever
+     * the post, its image or its comments change.
      *
      * @param postId the ID of the post to be retrieved
      * @return a PostDto containing the retrieved post details
      * @throws ResourceNotFoundException if the post with the specified ID does not exist
      */
     @Override
+    @Cacheable(cacheNames = AppConstants.POST_CACHE, key = "#postId")
     public PostDto getPostById(Integer postId) {
-        Post post = this.postRepository.findById(postId)
+        Post post = this.postRepository.findByPostId(postId)
                 .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
-        return this.modelMapper.map(post, PostDto.class);
+        return this.postMapper.toDto(post);
+    }
+
+    /**
+     * Retrieves the version of a post with a single narrow select, so a conditional request for an
+     * unchanged post is answered without loading and mapping the post.
+     *
+     * @param postId the ID of the post
+     * @return the version of the post
+     * @throws ResourceNotFoundException if the post with the specified ID does not exist
+     */
+    @Override
+    public PostVersion getPostVersion(Integer postId) {
+        return this.postRepository.findVersionByPostId(postId)
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+    }
+
+    /**
+     * Retrieves the versions of the posts on a page of {@link #getAllPosts(Integer, Integer, String, String)}.
+     *
+     * @param pageNumber the page number
+     * @param pageSize the page size
+     * @param sortBy the field to sort the posts on
+     * @param sortDirection the direction of sorting
+     * @return the page of post versions
+     */
+    @Override
+    public Page<PostVersion> getAllPostVersions(Integer pageNumber, Integer pageSize, String sortBy, String sortDirection) {
+        Sort sort = (sortDirection.equalsIgnoreCase("asc")) ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        return this.postRepository.findVersionsBy(PageRequest.of(pageNumber, pageSize, sort));
+    }
+
+    /**
+     * Retrieves the versions of the posts in a slice of {@link #getAllPosts(String, Integer, String, String)}
+     * with a single narrow select.
+     *
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @param sortBy the field to sort the posts on, one of postId, postTitle or addedDate
+     * @param sortDirection the direction of sorting
+     * @return the slice of post versions
+     * @throws InvalidCursorException if the cursor is invalid or the sort field is not supported
+     */
+    @Override
+    public Slice<PostVersion> getAllPostVersions(String after, Integer limit, String sortBy, String sortDirection) {
+        return this.versionSlice(null, null, this.cursorOf(after, sortBy, sortDirection), this.cursorLimit(limit));
     }
 
     /**
@@ -146,14 +359,61 @@ public class PostServiceImpl implements PostService {
      */
     @Override
     public List<PostDto> getPostsByCategory(Integer categoryId) {
-        Category category = this.categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category", "Category Id", categoryId));
-        List<Post> postsByCategory = this.postRepository.findByCategory(category);
+        Category category = this.categoryReference(categoryId);
+        List<Post> postsByCategory = this.postRepository.findByCategoryOrderByPostIdAsc(category);
         List<PostDto> postDtoList = postsByCategory.stream()
-                .map(post -> this.modelMapper.map(post, PostDto.class)).collect(Collectors.toList());
+                .map(post -> this.postMapper.toDto(post)).collect(Collectors.toList());
         return postDtoList;
     }
 
+    /**
+     * Retrieves a slice of the posts categorized under the specified category ID using keyset pagination.
+     *
+     * @param categoryId the ID of the category whose posts are to be retrieved
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @return a CursorResponse containing the posts and the cursor of the next slice
+     * @throws ResourceNotFoundException if the category with the specified ID does not exist
+     */
+    @Override
+    public CursorResponse<PostDto> getPostsByCategory(Integer categoryId, String after, Integer limit) {
+        Category category = this.categoryReference(categoryId);
+        KeysetCursor cursor = this.cursorOf(after, AppConstants.SORT_BY, AppConstants.SORT_DIRECTION);
+        int cursorLimit = this.cursorLimit(limit);
+        Window<Post> window = this.postRepository.findByCategory(category, cursor.toScrollPosition(), cursor.toSort(), Limit.of(cursorLimit));
+        return this.toCursorResponse(window, cursor, cursorLimit);
+    }
+
+    /**
+     * Retrieves the versions of the posts of {@link #getPostsByCategory(Integer)} with a single narrow select.
+     *
+     * @param categoryId the ID of the category
+     * @return the post versions ordered by post ID
+     * @throws ResourceNotFoundException if the category with the specified ID does not exist
+     */
+    @Override
+    public List<PostVersion> getPostVersionsByCategory(Integer categoryId) {
+        this.categoryReference(categoryId);
+        return this.postRepository.findVersionsByCategoryId(categoryId);
+    }
+
+    /**
+     * Retrieves the versions of the posts in a slice of {@link #getPostsByCategory(Integer, String, Integer)}
+     * with a single narrow select.
+     *
+     * @param categoryId the ID of the category
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @return the slice of post versions
+     * @throws ResourceNotFoundException if the category with the specified ID does not exist
+     */
+    @Override
+    public Slice<PostVersion> getPostVersionsByCategory(Integer categoryId, String after, Integer limit) {
+        this.categoryReference(categoryId);
+        KeysetCursor cursor = this.cursorOf(after, AppConstants.SORT_BY, AppConstants.SORT_DIRECTION);
+        return this.versionSlice("category.categoryId", categoryId, cursor, this.cursorLimit(limit));
+    }
+
     /**
      * Retrieves all posts written by the given user.
      *
@@ -165,22 +425,279 @@ public class PostServiceImpl implements PostService {
     public List<PostDto> getPostsByUser(Integer userId) {
         User user = this.userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
-        List<Post> postsByUser = this.postRepository.findByUser(user);
+        List<Post> postsByUser = this.postRepository.findByUserOrderByPostIdAsc(user);
         List<PostDto> postDtoList = postsByUser.stream()
-                .map(post -> this.modelMapper.map(post, PostDto.class)).collect(Collectors.toList());
+                .map(post -> this.postMapper.toDto(post)).collect(Collectors.toList());
         return postDtoList;
     }
 
     /**
-     * Retrieves all posts with titles containing the given search keywords.
+     * Retrieves a slice of the posts written by the given user using keyset pagination.
+     *
+     * @param userId the ID of the user whose posts are to be retrieved
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @return a CursorResponse containing the posts and the cursor of the next slice
+     * @throws ResourceNotFoundException if the user with the specified ID does not exist
+     */
+    @Override
+    public CursorResponse<PostDto> getPostsByUser(Integer userId, String after, Integer limit) {
+        User user = this.userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
+        KeysetCursor cursor = this.cursorOf(after, AppConstants.SORT_BY, AppConstants.SORT_DIRECTION);
+        int cursorLimit = this.cursorLimit(limit);
+        Window<Post> window = this.postRepository.findByUser(user, cursor.toScrollPosition(), cursor.toSort(), Limit.of(cursorLimit));
+        return this.toCursorResponse(window, cursor, cursorLimit);
+    }
+
+    /**
+     * Retrieves the versions of the posts of {@link #getPostsByUser(Integer)} with a single narrow select.
+     *
+     * @param userId the ID of the user
+     * @return the post versions ordered by post ID
+     * @throws ResourceNotFoundException if the user with the specified ID does not exist
+     */
+    @Override
+    public List<PostVersion> getPostVersionsByUser(Integer userId) {
+        this.requireUser(userId);
+        return this.postRepository.findVersionsByUserId(userId);
+    }
+
+    /**
+     * Retrieves the versions of the posts in a slice of {@link #getPostsByUser(Integer, String, Integer)}
+     * with a single narrow select.
+     *
+     * @param userId the ID of the user
+     * @param after the cursor returned by the previous slice, or null for the first slice
+     * @param limit the maximum number of posts in the slice, default is 10
+     * @return the slice of post versions
+     * @throws ResourceNotFoundException if the user with the specified ID does not exist
+     */
+    @Override
+    public Slice<PostVersion> getPostVersionsByUser(Integer userId, String after, Integer limit) {
+        this.requireUser(userId);
+        KeysetCursor cursor = this.cursorOf(after, AppConstants.SORT_BY, AppConstants.SORT_DIRECTION);
+        return this.versionSlice("user.id", userId, cursor, this.cursorLimit(limit));
+    }
+
+    private static Map<String, List<String>> postFields() {
+        Map<String, List<String>> fields = new LinkedHashMap<>();
+        Stream.of("postId", "postTitle", "postContent", "imageName", "addedDate", "commentCount", "version", "lastModified", "viewCount")
+                .forEach(field -> fields.put(field, List.of(field)));
+        fields.put("user", USER_FIELDS);
+        USER_FIELDS.forEach(field -> fields.put(field, List.of(field)));
+        fields.put("category", CATEGORY_FIELDS);
+        CATEGORY_FIELDS.forEach(field -> fields.put(field, List.of(field)));
+        return Collections.unmodifiableMap(fields);
+    }
+
+    /**
+     * Retrieves only the selected fields of a post, e.g. {@code postTitle,user.name}. Only the selected
+     * columns are read, and the author and category are joined only when one of their fields is selected.
+     *
+     * @param postId the ID of the post
+     * @param fields the comma separated fields to select
+     * @return the selected fields of the post, nested like a PostDto
+     * @throws ResourceNotFoundException if the post with the specified ID does not exist
+     * @throws InvalidFieldsException if a field cannot be selected
+     */
+    @Override
+    public Map<String, Object> getPostFields(Integer postId, String fields) {
+        return this.fieldsQuery.find(Post.class, FieldSet.parse(fields, POST_FIELDS), "postId", postId, Pageable.unpaged())
+                .stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Post", "Post Id", postId));
+    }
+
+    /**
+     * Retrieves only the selected fields of a page of posts.
+     *
+     * @param fields the comma separated fields to select
+     * @param pageNumber the page number
+     * @param pageSize the page size
+     * @param sortBy the field to sort the posts on
+     * @param sortDirection the direction of sorting
+     * @return the page of selected fields
+     * @throws InvalidFieldsException if a field cannot be selected
+     * @see #getPostFields(Integer, String)
+     */
+    @Override
+    public FieldsResponse getAllPostFields(String fields, Integer pageNumber, Integer pageSize, String sortBy, String sortDirection) {
+        Sort sort = (sortDirection.equalsIgnoreCase("asc")) ? Sort.by(sortBy).ascending()
+                : Sort.by(sortBy).descending();
+        Page<Map<String, Object>> page = this.fieldsQuery.find(Post.class, FieldSet.parse(fields, POST_FIELDS), null, null,
+                PageRequest.of(pageNumber, pageSize, sort));
+        return new FieldsResponse(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages(), page.isLast());
+    }
+
+    /**
+     * Retrieves only the selected fields of the posts in a category, ordered by ID.
+     *
+     * @param categoryId the ID of the category
+     * @param fields the comma separated fields to select
+     * @return the selected fields of the posts
+     * @throws ResourceNotFoundException if the category with the specified ID does not exist
+     * @throws InvalidFieldsException if a field cannot be selected
+     * @see #getPostFields(Integer, String)
+     */
+    @Override
+    public List<Map<String, Object>> getPostFieldsByCategory(Integer categoryId, String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, POST_FIELDS);
+        if (this.categoryNearCache.get(categoryId).isEmpty()) {
+            throw new ResourceNotFoundException("Category", "Category Id", categoryId);
+        }
+        return this.fieldsQuery.find(Post.class, fieldSet, "category.categoryId", categoryId, Pageable.unpaged(Sort.by("postId"))).getContent();
+    }
+
+    /**
+     * Retrieves only the selected fields of the posts written by a user, ordered by ID.
+     *
+     * @param userId the ID of the user
+     * @param fields the comma separated fields to select
+     * @return the selected fields of the posts
+     * @throws ResourceNotFoundException if the user with the specified ID does not exist
+     * @throws InvalidFieldsException if a field cannot be selected
+     * @see #getPostFields(Integer, String)
+     */
+    @Override
+    public List<Map<String, Object>> getPostFieldsByUser(Integer userId, String fields) {
+        FieldSet fieldSet = FieldSet.parse(fields, POST_FIELDS);
+        if (!this.userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "User Id", userId);
+        }
+        return this.fieldsQuery.find(Post.class, fieldSet, "user.id", userId, Pageable.unpaged(Sort.by("postId"))).getContent();
+    }
+
+    /**
+     * Searches the titles and contents of all posts for the given keywords. Ranking and pagination are done by
+     * the in-memory {@link PostSearchIndex}; only the posts of the requested page are loaded by their IDs.
      *
      * @param keywords the search keywords
-     * @return a list of PostDto objects containing the retrieved post details
+     * @param pageNumber the page number of the results to be retrieved, default is 0
+     * @param pageSize the page size of the results to be retrieved, default is 10
+     * @return a PostResponse containing the matching posts, most relevant first
      */
-    public List<PostDto> searchPostByTitle(String keywords) {
-        List<Post> posts = this.postRepository.findByPostTitleContaining(keywords);
-        List<PostDto> postDtoList = posts.stream()
-                .map(post -> this.modelMapper.map(post, PostDto.class)).collect(Collectors.toList());
-        return postDtoList;
+    @Override
+    public PostResponse searchPosts(String keywords, Integer pageNumber, Integer pageSize) {
+        Page<Integer> pagePostIds = this.postSearchIndex.search(keywords, pageNumber, Math.min(pageSize, AppConstants.MAX_PAGE_SIZE));
+        List<Integer> postIds = pagePostIds.getContent();
+        Map<Integer, Post> postsById = postIds.isEmpty() ? Map.of()
+                : this.postRepository.findByPostIdIn(postIds).stream().collect(Collectors.toMap(Post::getPostId, post -> post));
+        List<PostDto> postDtoList = postIds.stream().map(postsById::get).filter(Objects::nonNull)
+                .map(post -> this.postMapper.toDto(post)).collect(Collectors.toList());
+        return new PostResponse(postDtoList, pagePostIds.getNumber(), pagePostIds.getSize(),
+                pagePostIds.getTotalElements(), pagePostIds.getTotalPages(), pagePostIds.isLast());
+    }
+
+    /**
+     * Writes all posts to the given stream as newline-delimited JSON, one PostDto per line.
+     * <p>
+     * The posts are read from an open database cursor and written one at a time, and the persistence
+     * context is cleared after every fetch, so memory use does not grow with the number of posts.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing to the stream fails
+     */
+    @Override
+    public void exportPosts(OutputStream out) throws IOException {
+        try (Stream<Post> posts = this.postRepository.streamAll()) {
+            this.writeNdjson(posts, out);
+        }
+    }
+
+    /**
+     * Writes all posts categorized under the specified category to the given stream as newline-delimited JSON.
+     *
+     * @param categoryId the ID of the category whose posts are to be exported
+     * @param out the stream to write to
+     * @throws ResourceNotFoundException if the category with the specified ID does not exist
+     * @throws IOException if writing to the stream fails
+     * @see #exportPosts(OutputStream)
+     */
+    @Override
+    public void exportPostsByCategory(Integer categoryId, OutputStream out) throws IOException {
+        Category category = this.categoryReference(categoryId);
+        try (Stream<Post> posts = this.postRepository.streamByCategory(category)) {
+            this.writeNdjson(posts, out);
+        }
+    }
+
+    /**
+     * Writes all posts written by the given user to the given stream as newline-delimited JSON.
+     *
+     * @param userId the ID of the user whose posts are to be exported
+     * @param out the stream to write to
+     * @throws ResourceNotFoundException if the user with the specified ID does not exist
+     * @throws IOException if writing to the stream fails
+     * @see #exportPosts(OutputStream)
+     */
+    @Override
+    public void exportPostsByUser(Integer userId, OutputStream out) throws IOException {
+        User user = this.userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "User Id", userId));
+        try (Stream<Post> posts = this.postRepository.streamByUser(user)) {
+            this.writeNdjson(posts, out);
+        }
+    }
+
+    private void writeNdjson(Stream<Post> posts, OutputStream out) throws IOException {
+        int fetchSize = Integer.parseInt(AppConstants.EXPORT_FETCH_SIZE);
+        ObjectWriter writer = this.objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // lines are separated by the newline written after each post, not by Jackson's default space
+            generator.setRootValueSeparator(null);
+            int written = 0;
+            for (Post post : (Iterable<Post>) posts::iterator) {
+                writer.writeValue(generator, this.postMapper.toDto(post));
+                generator.writeRaw('\n');
+                if (++written % fetchSize == 0) {
+                    this.entityManager.clear();
+                    generator.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the category against the {@link CategoryNearCache} and returns a reference to it, to filter
+     * posts by without loading it.
+     */
+    private Category categoryReference(Integer categoryId) {
+        if (this.categoryNearCache.get(categoryId).isEmpty()) {
+            throw new ResourceNotFoundException("Category", "Category Id", categoryId);
+        }
+        return this.categoryRepository.getReferenceById(categoryId);
+    }
+
+    private void requireUser(Integer userId) {
+        if (!this.userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "User Id", userId);
+        }
+    }
+
+    private KeysetCursor cursorOf(String after, String sortBy, String sortDirection) {
+        return (after == null || after.isBlank()) ? KeysetCursor.first(sortBy, sortDirection, CURSOR_KEYS)
+                : KeysetCursor.decode(after, CURSOR_KEYS);
+    }
+
+    private int cursorLimit(Integer limit) {
+        if (limit == null) {
+            return Integer.parseInt(AppConstants.PAGE_SIZE);
+        }
+        return Math.max(1, Math.min(limit, AppConstants.MAX_PAGE_SIZE));
+    }
+
+    private Slice<PostVersion> versionSlice(String filterPath, Object filterValue, KeysetCursor cursor, int limit) {
+        List<PostVersion> versions = this.postVersionQuery.find(filterPath, filterValue, cursor, limit);
+        boolean hasNext = versions.size() > limit;
+        return new SliceImpl<>(hasNext ? versions.subList(0, limit) : versions, PageRequest.ofSize(limit), hasNext);
+    }
+
+    private CursorResponse<PostDto> toCursorResponse(Window<Post> window, KeysetCursor cursor, int limit) {
+        List<PostDto> postDtoList = window.getContent().stream()
+                .map(post -> this.postMapper.toDto(post)).collect(Collectors.toList());
+        String nextCursor = window.hasNext() ? cursor.next(window.positionAt(window.size() - 1)).encode() : null;
+        return new CursorResponse<>(postDtoList, nextCursor, limit, !window.hasNext());
     }
 }
@@ -0,0 +1,129 @@
+package com.subro.blog.services.impl;
+
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.services.FileService;
+import com.subro.blog.services.ThumbnailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    private ExecutorService thumbnailExecutor;
+
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Schedules the thumbnail of an image to be generated in the background and returns immediately.
+     * <p>
+     * Nothing is scheduled if the thumbnail already exists or is already being generated. When the
+     * thumbnail queue is full the request is dropped; the next download of the missing thumbnail falls
+     * back to the original and requests it again.
+     *
+     * @param path the path where the image is stored
+     * @param imageName the name of the image
+     */
+    @Override
+    public void requestThumbnail(String path, String imageName) {
+        Path directory = Paths.get(path).toAbsolutePath().normalize();
+        Path source = directory.resolve(imageName).normalize();
+        Path target = directory.resolve(FileService.thumbnailNameOf(imageName)).normalize();
+        if (!source.startsWith(directory) || !target.startsWith(directory)
+                || Files.exists(target) || !this.pending.add(target)) {
+            return;
+        }
+        try {
+            this.thumbnailExecutor.execute(() -> {
+                try {
+                    this.generate(source, target);
+                } catch (IOException | RuntimeException ex) {
+                    log.warn("Could not generate thumbnail for {}", source.getFileName(), ex);
+                } finally {
+                    this.pending.remove(target);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            this.pending.remove(target);
+            log.debug("Thumbnail queue is full, skipping {}", source.getFileName());
+        }
+    }
+
+    /**
+     * Scales the image down to fit into a {@value AppConstants#THUMBNAIL_SIZE} pixel square, keeping its
+     * aspect ratio and format. Large images are subsampled while they are decoded, so a full resolution
+     * bitmap of the original is never held in memory. The thumbnail is written to a temporary file and
+     * moved into place, so readers never see a partial thumbnail.
+     */
+    private void generate(Path source, Path target) throws IOException {
+        String name = source.getFileName().toString();
+        String format = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        if (!ImageIO.getImageWritersBySuffix(format).hasNext()) {
+            return;
+        }
+        BufferedImage original;
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longest / (2 * AppConstants.THUMBNAIL_SIZE));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                original = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        double scale = Math.min(1.0, (double) AppConstants.THUMBNAIL_SIZE / Math.max(original.getWidth(), original.getHeight()));
+        int width = Math.max(1, (int) Math.round(original.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * scale));
+        boolean opaque = format.equals("jpg") || format.equals("jpeg") || format.equals("bmp");
+        BufferedImage thumbnail = new BufferedImage(width, height, opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path temp = Files.createTempFile(target.getParent(), "thumb-", ".tmp");
+        try {
+            if (ImageIO.write(thumbnail, format, temp.toFile())) {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
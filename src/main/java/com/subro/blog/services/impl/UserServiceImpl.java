@@ -1,24 +1,50 @@
 package com.subro.blog.services.impl;
 
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.entities.Post;
 import com.subro.blog.entities.User;
+import com.subro.blog.exceptions.InvalidFieldsException;
 import com.subro.blog.exceptions.ResourceNotFoundException;
+import com.subro.blog.mappers.UserMapper;
+import com.subro.blog.payloads.FieldSet;
 import com.subro.blog.payloads.UserDto;
+import com.subro.blog.repositories.FieldsQuery;
+import com.subro.blog.repositories.PostRepository;
 import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
 import com.subro.blog.services.UserService;;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Read-only transactions by default, see {@link PostServiceImpl}.
+ */
 @Service
+@Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
+    private static final Map<String, List<String>> USER_FIELDS = Stream.of("id", "name", "email", "about")
+            .collect(Collectors.toUnmodifiableMap(field -> field, List::of));
 
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private ModelMapper modelMapper;
+    private PostRepository postRepository;
+    @Autowired
+    private FieldsQuery fieldsQuery;
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+    @Autowired
+    private UserMapper userMapper;
     /**
      * Creates a new user based on the given userDto.
      *
@@ -26,6 +52,7 @@ public class UserServiceImpl implements UserService {
      * @return a UserDto containing the saved user details
      */
     @Override
+    @Transactional
     public UserDto  createUser(UserDto userDto) {
         User user = this.dtoToUser(userDto);
         User savedUser = this.userRepository.save(user);
@@ -33,7 +60,8 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Updates the user identified by the given userId with the provided information.
+     * Updates the user identified by the given userId with the provided information. The posts of the user
+     * embed the user, so their versions are bumped and the post cache is cleared.
      *
      * @param userDto the user information to be used to update the existing user
      * @param userId the ID of the user to be updated
@@ -41,6 +69,11 @@ public class UserServiceImpl implements UserService {
      * @throws ResourceNotFoundException if the user with the given ID does not exist
      */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = AppConstants.PRINCIPAL_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = AppConstants.POST_CACHE, allEntries = true)
+    })
     public UserDto updateUser(UserDto userDto, Integer userId) {
         User user = this.userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User", "Id", userId));
 
@@ -48,8 +81,8 @@ public class UserServiceImpl implements UserService {
         user.setEmail(userDto.getEmail());
         user.setPassword(userDto.getPassword());
         user.setAbout(userDto.getAbout());
-        User updatedUser = this.userRepository.save(user);
-        return this.userToDto(updatedUser);
+        this.postRepository.touchByUserId(userId);
+        return this.userToDto(user);
     }
 
     /**
@@ -76,16 +109,54 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Deletes the user identified by the given userId.
+     * Retrieves only the selected fields of a user, e.g. {@code name,about}, reading only their columns.
+     * The password and roles cannot be selected.
+     *
+     * @param userId the ID of the user
+     * @param fields the comma separated fields to select
+     * @return the selected fields of the user
+     * @throws ResourceNotFoundException if the user with the given ID does not exist
+     * @throws InvalidFieldsException if a field cannot be selected
+     */
+    @Override
+    public Map<String, Object> getUserFields(Integer userId, String fields) {
+        return this.fieldsQuery.find(User.class, FieldSet.parse(fields, USER_FIELDS), "id", userId, Pageable.unpaged())
+                .stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("User", "Id", userId));
+    }
+
+    /**
+     * Retrieves only the selected fields of all users, ordered by ID.
+     *
+     * @param fields the comma separated fields to select
+     * @return the selected fields of the users
+     * @throws InvalidFieldsException if a field cannot be selected
+     * @see #getUserFields(Integer, String)
+     */
+    @Override
+    public List<Map<String, Object>> getAllUserFields(String fields) {
+        return this.fieldsQuery.find(User.class, FieldSet.parse(fields, USER_FIELDS), null, null, Pageable.unpaged(Sort.by("id"))).getContent();
+    }
+
+    /**
+     * Deletes the user identified by the given userId, along with their posts, which are removed from the
+     * search index and the post cache.
      *
      * @param userId the ID of the user to be deleted
      * @throws ResourceNotFoundException if the user with the given ID does not exist
      */
     @Override
+    @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = AppConstants.PRINCIPAL_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = AppConstants.POST_CACHE, allEntries = true)
+    })
     public void deleteUser(Integer userId) {
         User user = this.userRepository.findById(userId).orElseThrow(() -> new ResourceNotFoundException("User", "Id", userId));
+        // the cascade loads the posts to delete them anyway
+        List<Integer> postIds = user.getPosts().stream().map(Post::getPostId).collect(Collectors.toList());
         this.userRepository.delete(user);
-
+        postIds.forEach(this.postSearchIndex::remove);
     }
 
     /**
@@ -94,7 +165,7 @@ public class UserServiceImpl implements UserService {
      * @return the corresponding User
      */
     public User dtoToUser(UserDto userDto){
-        User user=this.modelMapper.map(userDto, User.class);
+        User user=this.userMapper.toEntity(userDto);
 //        user.setId(userDto.getId());
 //        user.setName(userDto.getName());
 //        user.setEmail(userDto.getEmail());
@@ -109,7 +180,7 @@ public class UserServiceImpl implements UserService {
      * @return the corresponding UserDto
      */
     public UserDto userToDto(User user){
-        UserDto userDto=this.modelMapper.map(user, UserDto.class);
+        UserDto userDto=this.userMapper.toDto(user);
 //        userDto.setId(user.getId());
 //        userDto.setName(user.getName());
 //        userDto.setEmail(user.getEmail());
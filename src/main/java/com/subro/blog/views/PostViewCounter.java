@@ -0,0 +1,139 @@
+package com.subro.blog.views;
+
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.mappers.PostMapper;
+import com.subro.blog.payloads.PostDto;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts post views in memory and adds them to {@code posts.view_count} in periodic batches, so a view
+ * costs an increment of a {@link LongAdder} instead of an UPDATE per request. Concurrent views of the same
+ * post increment different cells of its adder and do not contend.
+ * <p>
+ * Every {@code blog.views.flush-interval} the views counted since the last flush are written as one JDBC
+ * batch of {@code view_count = view_count + ?} updates and the resulting totals are read back, so the
+ * counts shown include the views of other instances as of the last flush. Views that cannot be written are
+ * counted again with the next flush; pending views are flushed on shutdown. The counter of a post that was
+ * not viewed for a whole interval is dropped along with its cached copy, whose view count the counter kept
+ * current, so posts viewed once, e.g. by crawlers, do not accumulate.
+ */
+@Component
+public class PostViewCounter {
+    private static final Logger log = LoggerFactory.getLogger(PostViewCounter.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private PostMapper postMapper;
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final Map<Integer, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a view of a post.
+     *
+     * @param postId the ID of the viewed post
+     */
+    public void record(Integer postId) {
+        long views = 1;
+        while (views > 0) {
+            Counter counter = this.counters.computeIfAbsent(postId, id -> new Counter());
+            counter.pending.add(views);
+            // a counter dropped as idle meanwhile is not flushed anymore, so its views are moved to a new one
+            views = this.counters.get(postId) == counter ? 0 : counter.pending.sumThenReset();
+        }
+    }
+
+    /**
+     * Returns a copy of the post with its view count brought up to date with the views counted here, leaving
+     * the given post, which may be cached, unchanged.
+     *
+     * @param postDto the post, with the view count it was read with
+     * @return the post with the current view count
+     */
+    public PostDto withCurrentViews(PostDto postDto) {
+        Counter counter = this.counters.get(postDto.getPostId());
+        if (counter == null) {
+            return postDto;
+        }
+        long persisted = Math.max(postDto.getViewCount(), counter.persisted);
+        return this.postMapper.withViewCount(postDto, persisted + counter.pending.sum());
+    }
+
+    /**
+     * Writes the views counted since the last flush.
+     */
+    @Scheduled(initialDelayString = "${blog.views.flush-interval}", fixedDelayString = "${blog.views.flush-interval}")
+    @PreDestroy
+    public synchronized void flush() {
+        List<Integer> postIds = new ArrayList<>();
+        List<Object[]> increments = new ArrayList<>();
+        List<Integer> idle = new ArrayList<>();
+        this.counters.forEach((postId, counter) -> {
+            long views = counter.pending.sumThenReset();
+            if (views > 0) {
+                postIds.add(postId);
+                increments.add(new Object[]{views, postId});
+            } else {
+                idle.add(postId);
+            }
+        });
+        Cache postCache = this.cacheManager.getCache(AppConstants.POST_CACHE);
+        for (Integer postId : idle) {
+            if (this.counters.computeIfPresent(postId, (id, counter) -> counter.pending.sum() == 0 ? null : counter) == null) {
+                postCache.evict(postId);
+            }
+        }
+        if (postIds.isEmpty()) {
+            return;
+        }
+        try {
+            List<Map<String, Object>> totals = new TransactionTemplate(this.transactionManager).execute(status -> {
+                this.jdbcTemplate.batchUpdate("update posts set view_count = view_count + ? where post_id = ?", increments);
+                return this.namedParameterJdbcTemplate.queryForList(
+                        "select post_id, view_count from posts where post_id in (:postIds)", Map.of("postIds", postIds));
+            });
+            List<Integer> deleted = new ArrayList<>(postIds);
+            for (Map<String, Object> total : totals) {
+                Integer postId = ((Number) total.get("post_id")).intValue();
+                this.counters.get(postId).persisted = ((Number) total.get("view_count")).longValue();
+                deleted.remove(postId);
+            }
+            deleted.forEach(this.counters::remove);
+            log.debug("Flushed the views of {} posts", postIds.size());
+        } catch (DataAccessException ex) {
+            for (Object[] increment : increments) {
+                this.counters.get((Integer) increment[1]).pending.add((Long) increment[0]);
+            }
+            log.warn("Could not flush the views of {} posts, retrying with the next flush", postIds.size(), ex);
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder pending = new LongAdder();
+        private volatile long persisted;
+    }
+}
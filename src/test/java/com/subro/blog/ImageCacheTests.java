@@ -0,0 +1,145 @@
+package com.subro.blog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.images.ImageCache;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Downloads uploaded post images through the off-heap {@link ImageCache} and checks that replacing the
+ * image of a post releases the previous one.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImageCacheTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private MeterRegistry meterRegistry;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private PostRepository postRepository;
+
+	private Post post;
+
+	@BeforeAll
+	void seed() {
+		User user = new User();
+		user.setName("image user");
+		user.setEmail("images@blog.test");
+		user.setPassword("secret");
+		user.setAbout("about");
+		Post post = new Post();
+		post.setPostTitle("Post with an image");
+		post.setPostContent("Content");
+		post.setAddedDate(new Date());
+		post.setImageName("default.png");
+		post.setUser(this.userRepository.save(user));
+		post.setCategory(this.categoryRepository.save(new Category(null, "Images", "Posts with images", new ArrayList<>())));
+		this.post = this.postRepository.save(post);
+	}
+
+	@Test
+	void hotImagesAreServedFromMemoryUntilReplaced() throws Exception {
+		byte[] image = png(Color.ORANGE);
+		String imageName = this.upload(image);
+		double hits = this.requests("hit");
+
+		this.mockMvc.perform(get("/api/post/image/{imageName}", imageName))
+				.andExpect(status().isOk())
+				.andExpect(content().bytes(image));
+		this.mockMvc.perform(get("/api/post/image/{imageName}", imageName))
+				.andExpect(status().isOk())
+				.andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, image.length))
+				.andExpect(content().bytes(image));
+		this.mockMvc.perform(get("/api/post/image/{imageName}", imageName).header(HttpHeaders.RANGE, "bytes=1-8"))
+				.andExpect(status().isPartialContent())
+				.andExpect(content().bytes(Arrays.copyOfRange(image, 1, 9)));
+		assertThat(this.requests("hit")).isGreaterThanOrEqualTo(hits + 2);
+		assertThat(this.residentBytes()).isGreaterThanOrEqualTo(image.length);
+		assertThat(this.meterRegistry.get("cache.hit.ratio").tag("cache", ImageCache.NAME).gauge().value()).isPositive();
+
+		double residentBefore = this.residentBytes();
+		this.upload(png(Color.CYAN));
+		assertThat(this.residentBytes()).isEqualTo(residentBefore - image.length);
+	}
+
+	@Test
+	void uploadsAreNamedAfterTheirContent() throws Exception {
+		String response = this.mockMvc.perform(multipart("/api/post/image/upload/{postId}", this.post.getPostId())
+						.file(new MockMultipartFile("image", "image.svg", "image/svg+xml", png(Color.PINK))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		assertThat(this.objectMapper.readTree(response).get("imageName").asText()).endsWith(".png");
+
+		this.mockMvc.perform(multipart("/api/post/image/upload/{postId}", this.post.getPostId())
+						.file(new MockMultipartFile("image", "image.html", "text/html", "<script>alert(1)</script>".getBytes())))
+				.andExpect(status().isUnsupportedMediaType());
+	}
+
+	private String upload(byte[] image) throws Exception {
+		String response = this.mockMvc.perform(multipart("/api/post/image/upload/{postId}", this.post.getPostId())
+						.file(new MockMultipartFile("image", "image.png", "image/png", image)))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return this.objectMapper.readTree(response).get("imageName").asText();
+	}
+
+	private double requests(String result) {
+		return this.meterRegistry.get("cache.gets").tag("cache", ImageCache.NAME).tag("result", result).functionCounter().count();
+	}
+
+	private double residentBytes() {
+		return this.meterRegistry.get("cache.resident").tag("cache", ImageCache.NAME).gauge().value();
+	}
+
+	private static byte[] png(Color color) throws Exception {
+		BufferedImage image = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = image.createGraphics();
+		graphics.setColor(color);
+		graphics.fillRect(0, 0, 64, 48);
+		graphics.dispose();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+}
@@ -0,0 +1,178 @@
+package com.subro.blog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.ImportCheckpoint;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.ImportCheckpointRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs bulk imports through the import endpoints with small chunks, so every import spans several
+ * transactions and queue hand-overs.
+ */
+@SpringBootTest(properties = {"blog.import.chunk-size=100", "blog.import.queue-chunks=2"})
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImportTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private PostRepository postRepository;
+	@Autowired
+	private ImportCheckpointRepository importCheckpointRepository;
+	@Value("${blog.import.directory}")
+	private String importDirectory;
+
+	private User author;
+	private Category category;
+
+	@BeforeAll
+	void seed() throws Exception {
+		Files.createDirectories(Paths.get(this.importDirectory));
+		User user = new User();
+		user.setName("import user");
+		user.setEmail("import@blog.test");
+		user.setPassword("secret");
+		user.setAbout("about");
+		this.author = this.userRepository.save(user);
+		this.category = this.categoryRepository.save(new Category(null, "Imported", "Imported posts", new ArrayList<>()));
+	}
+
+	@Test
+	void importsPostsFromNdjsonInChunks() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 450; i++) {
+			int userId = i == 120 ? -1 : this.author.getId();
+			String title = i == 7 ? "Bad" : "Imported post " + i;
+			lines.add("{\"userId\":" + userId + ",\"categoryId\":" + this.category.getCategoryId()
+					+ ",\"postTitle\":\"" + title + "\",\"postContent\":\"Imported content " + i + "\"}");
+		}
+		Files.write(Paths.get(this.importDirectory, "posts.ndjson"), lines);
+		long before = this.postRepository.count();
+
+		JsonNode job = this.runImport("POSTS", "posts.ndjson");
+
+		assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+		assertThat(job.get("recordsRead").asLong()).isEqualTo(450);
+		assertThat(job.get("recordsImported").asLong()).isEqualTo(448);
+		assertThat(job.get("recordsRejected").asLong()).isEqualTo(2);
+		assertThat(job.get("chunksCommitted").asLong()).isEqualTo(5);
+		assertThat(job.get("bytesRead").asLong()).isEqualTo(job.get("totalBytes").asLong());
+		assertThat(job.get("errors").toString()).contains("Record 8: postTitle", "Record 121: User not found");
+		assertThat(this.postRepository.count()).isEqualTo(before + 448);
+		assertThat(this.importCheckpointRepository.findById("POSTS:posts.ndjson")).isEmpty();
+	}
+
+	@Test
+	void resumesCommentsFromCsvAfterTheCheckpoint() throws Exception {
+		Post post = new Post();
+		post.setPostTitle("Commented post");
+		post.setPostContent("Comments are imported");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(this.category);
+		post = this.postRepository.save(post);
+		List<String> lines = new ArrayList<>(List.of("postId,userId,content"));
+		for (int i = 0; i < 250; i++) {
+			lines.add(post.getPostId() + "," + this.author.getId() + ",\"Comment " + i + ", imported\"");
+		}
+		Files.write(Paths.get(this.importDirectory, "comments.csv"), lines);
+		this.importCheckpointRepository.save(new ImportCheckpoint("COMMENTS:comments.csv", 200));
+
+		JsonNode job = this.runImport("COMMENTS", "comments.csv");
+
+		assertThat(job.get("status").asText()).isEqualTo("COMPLETED");
+		assertThat(job.get("resumedFrom").asLong()).isEqualTo(200);
+		assertThat(job.get("recordsImported").asLong()).isEqualTo(50);
+		assertThat(this.postRepository.findById(post.getPostId()).orElseThrow().getCommentCount()).isEqualTo(50);
+	}
+
+	@Test
+	void releasesTheReaderWhenTheWriterFails() throws Exception {
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 2000; i++) {
+			// post_content is a VARCHAR(255), so the insert of record 251 fails in the third chunk
+			String content = i == 250 ? "x".repeat(1000) : "Failing content " + i;
+			lines.add("{\"userId\":" + this.author.getId() + ",\"categoryId\":" + this.category.getCategoryId()
+					+ ",\"postTitle\":\"Failing post " + i + "\",\"postContent\":\"" + content + "\"}");
+		}
+		Files.write(Paths.get(this.importDirectory, "failing-posts.ndjson"), lines);
+
+		JsonNode failed = this.runImport("POSTS", "failing-posts.ndjson");
+
+		assertThat(failed.get("status").asText()).isEqualTo("FAILED");
+		assertThat(failed.get("chunksCommitted").asLong()).isEqualTo(2);
+		assertThat(this.importCheckpointRepository.findById("POSTS:failing-posts.ndjson"))
+				.hasValueSatisfying(checkpoint -> assertThat(checkpoint.getRecordsProcessed()).isEqualTo(200));
+
+		// the reader has stopped before the failure is reported, so the next import starts and completes at once
+		Files.write(Paths.get(this.importDirectory, "after-failure.ndjson"), List.of("{\"userId\":" + this.author.getId()
+				+ ",\"categoryId\":" + this.category.getCategoryId() + ",\"postTitle\":\"After failure\",\"postContent\":\"Imported after a failed import\"}"));
+		JsonNode next = this.runImport("POSTS", "after-failure.ndjson");
+
+		assertThat(next.get("status").asText()).isEqualTo("COMPLETED");
+		assertThat(next.get("recordsImported").asLong()).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsFilesOutsideTheImportDirectory() throws Exception {
+		this.mockMvc.perform(post("/api/imports").param("type", "USERS").param("file", "../../pom.xml"))
+				.andExpect(status().isNotFound());
+	}
+
+	/**
+	 * Runs an import and waits for it to finish. The import must be accepted right away: the import of the
+	 * previous test released the import executor before it reported its result.
+	 */
+	private JsonNode runImport(String type, String file) throws Exception {
+		String started = this.mockMvc.perform(post("/api/imports").param("type", type).param("file", file))
+				.andExpect(status().isAccepted())
+				.andReturn().getResponse().getContentAsString();
+		long jobId = this.objectMapper.readTree(started).get("id").asLong();
+		for (int attempt = 0; attempt < 300; attempt++) {
+			String progress = this.mockMvc.perform(get("/api/imports/{jobId}", jobId))
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getContentAsString();
+			JsonNode job = this.objectMapper.readTree(progress);
+			if (!job.get("status").asText().equals("RUNNING")) {
+				return job;
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("Import " + jobId + " did not finish");
+	}
+}
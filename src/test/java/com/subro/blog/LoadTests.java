@@ -0,0 +1,428 @@
+package com.subro.blog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Comment;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.CommentRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
+import com.subro.blog.services.FileService;
+import org.junit.jupiter.api.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load test of the HTTP API. Boots the application on a random port against the in-memory H2 database in
+ * MySQL mode, seeds users, posts, comments and an image, and drives a weighted mix of listings, search,
+ * comment paging, user lookups, image downloads and writes from concurrent clients.
+ * <p>
+ * Every client logs in once before it starts. Logins are CPU bound on password hashing and take far longer
+ * than the rest of the mix, so in the closed loop they would set the pace of every client and the other
+ * endpoints would only measure the login queue. Instead logins arrive open loop at {@code load.login-rate}
+ * per second, whatever the response times, and their latency is measured from the time each was due.
+ * <p>
+ * Throughput and p50/p99/p999 latency are reported per endpoint; throughput, p99 and the number of samples
+ * are written to {@code target/load-results.properties}. The test fails when an endpoint errors, when its
+ * throughput drops below {@code load-baseline.properties} by more than {@code load.tolerance}, or when its
+ * p99 grows past the baseline by more than that tolerance plus {@code load.latency-slack} milliseconds. An
+ * endpoint with a baseline p99 has to reach {@code load.min-samples} samples for its p99 to be meaningful,
+ * so the test also fails when the run was too short for that; p50 and p999 are too noisy on a run of this
+ * length to gate on and are only reported. Copy the results file over the baseline to accept a new level.
+ * <p>
+ * Excluded from the default build, run it with {@code mvn -Pload test}. The load is tuned with
+ * {@code -Dload.clients}, {@code -Dload.login-rate}, {@code -Dload.warmup} and {@code -Dload.duration}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTests {
+	private static final Logger log = LoggerFactory.getLogger(LoadTests.class);
+	private static final String PASSWORD = "load-test-password";
+	private static final int USERS = 50;
+	private static final int CATEGORIES = 10;
+	private static final int POSTS = 2000;
+	private static final int COMMENTS_PER_POST = 3;
+	private static final String[] SEARCH_TERMS = {"pagination", "cache", "latency", "index", "thread"};
+
+	@LocalServerPort
+	private int port;
+	@Value("${project.image}")
+	private String imagePath;
+	@Value("${load.clients:32}")
+	private int clients;
+	@Value("${load.warmup:PT10S}")
+	private Duration warmup;
+	@Value("${load.login-rate:2}")
+	private double loginRate;
+	@Value("${load.duration:PT60S}")
+	private Duration duration;
+	@Value("${load.tolerance:0.5}")
+	private double tolerance;
+	@Value("${load.min-samples:500}")
+	private int minSamples;
+	@Value("${load.latency-slack:10}")
+	private double latencySlack;
+
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private PostRepository postRepository;
+	@Autowired
+	private CommentRepository commentRepository;
+	@Autowired
+	private PostSearchIndex postSearchIndex;
+	@Autowired
+	private FileService fileService;
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+	private final List<User> users = new ArrayList<>();
+	private final List<Category> categories = new ArrayList<>();
+	private final Map<Integer, List<Integer>> postIdsByUser = new HashMap<>();
+	private final List<Integer> postIds = new ArrayList<>();
+	private String imageName;
+
+	@Test
+	void mixedWorkloadStaysWithinBaseline() throws Exception {
+		this.seed();
+		this.run(this.warmup);
+		Map<String, Samples> samples = this.run(this.duration);
+
+		Properties results = new Properties();
+		StringBuilder report = new StringBuilder(String.format("%n%-14s %10s %9s %9s %9s %7s %7s%n",
+				"endpoint", "req/s", "p50 ms", "p99 ms", "p999 ms", "shed", "errors"));
+		for (Map.Entry<String, Samples> entry : new TreeMap<>(samples).entrySet()) {
+			String endpoint = entry.getKey();
+			Samples endpointSamples = entry.getValue();
+			double throughput = endpointSamples.count() / (this.duration.toMillis() / 1000.0);
+			report.append(String.format("%-14s %10.1f %9.2f %9.2f %9.2f %7d %7d%n", endpoint, throughput,
+					endpointSamples.percentile(0.5), endpointSamples.percentile(0.99), endpointSamples.percentile(0.999),
+					endpointSamples.shed, endpointSamples.errors));
+			results.setProperty(endpoint + ".throughput", String.format(Locale.ROOT, "%.1f", throughput));
+			results.setProperty(endpoint + ".p99", String.format(Locale.ROOT, "%.2f", endpointSamples.percentile(0.99)));
+			results.setProperty(endpoint + ".samples", String.valueOf(endpointSamples.count()));
+		}
+		log.info("Load test results for {} clients:{}", this.clients, report);
+		Path resultsFile = Paths.get("target", "load-results.properties");
+		Files.createDirectories(resultsFile.getParent());
+		try (OutputStream out = Files.newOutputStream(resultsFile)) {
+			results.store(out, this.clients + " clients for " + this.duration);
+		}
+
+		Properties baseline = new Properties();
+		try (InputStream in = getClass().getResourceAsStream("/load-baseline.properties")) {
+			baseline.load(in);
+		}
+		List<String> regressions = new ArrayList<>();
+		samples.forEach((endpoint, endpointSamples) -> {
+			if (endpointSamples.errors > 0) {
+				regressions.add(endpoint + " failed " + endpointSamples.errors + " requests");
+			}
+			String expectedThroughput = baseline.getProperty(endpoint + ".throughput");
+			double throughput = Double.parseDouble(results.getProperty(endpoint + ".throughput"));
+			if (expectedThroughput != null && throughput < Double.parseDouble(expectedThroughput) * (1 - this.tolerance)) {
+				regressions.add(endpoint + ".throughput is " + throughput + ", baseline " + expectedThroughput);
+			}
+			String expectedP99 = baseline.getProperty(endpoint + ".p99");
+			double p99 = Double.parseDouble(results.getProperty(endpoint + ".p99"));
+			if (expectedP99 != null && endpointSamples.count() < this.minSamples) {
+				regressions.add(endpoint + " has " + endpointSamples.count() + " samples, its p99 needs " + this.minSamples);
+			} else if (expectedP99 != null && p99 > Double.parseDouble(expectedP99) * (1 + this.tolerance) + this.latencySlack) {
+				regressions.add(endpoint + ".p99 is " + p99 + ", baseline " + expectedP99);
+			}
+		});
+		assertThat(regressions).as("regressions against load-baseline.properties").isEmpty();
+	}
+
+	private void seed() throws IOException {
+		String encodedPassword = this.passwordEncoder.encode(PASSWORD);
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setName("Load user " + i);
+			user.setEmail("load" + i + "@blog.test");
+			user.setPassword(encodedPassword);
+			user.setAbout("Generates load");
+			this.users.add(this.userRepository.save(user));
+		}
+		for (int i = 0; i < CATEGORIES; i++) {
+			this.categories.add(this.categoryRepository.save(new Category(null, "Load category " + i, "Category " + i + " of the load test", new ArrayList<>())));
+		}
+
+		byte[] png = randomPng();
+		this.imageName = this.fileService.uploadImage(this.imagePath, new MockMultipartFile("image", "load.png", "image/png", png));
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < POSTS; i++) {
+			Post post = new Post();
+			post.setPostTitle("Load post " + i + " about " + SEARCH_TERMS[i % SEARCH_TERMS.length]);
+			post.setPostContent("Notes on " + SEARCH_TERMS[(i + 1) % SEARCH_TERMS.length] + " and " + SEARCH_TERMS[(i + 2) % SEARCH_TERMS.length]);
+			post.setAddedDate(new Date());
+			post.setImageName(this.imageName);
+			post.setUser(this.users.get(i % USERS));
+			post.setCategory(this.categories.get(i % CATEGORIES));
+			posts.add(post);
+		}
+		List<Comment> comments = new ArrayList<>();
+		for (Post post : this.postRepository.saveAll(posts)) {
+			this.postIds.add(post.getPostId());
+			this.postIdsByUser.computeIfAbsent(post.getUser().getId(), id -> new ArrayList<>()).add(post.getPostId());
+			for (int j = 0; j < COMMENTS_PER_POST; j++) {
+				Comment comment = new Comment();
+				comment.setContent("Comment " + j);
+				comment.setPost(post);
+				comment.setUser(this.users.get(j % USERS));
+				comments.add(comment);
+			}
+		}
+		this.commentRepository.saveAll(comments);
+		new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+				this.postIds.forEach(postId -> this.postRepository.adjustCommentCount(postId, COMMENTS_PER_POST)));
+		this.postSearchIndex.rebuild();
+	}
+
+	private Map<String, Samples> run(Duration runDuration) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(this.clients + 1);
+		try {
+			List<Future<Map<String, Samples>>> futures = new ArrayList<>();
+			long deadline = System.nanoTime() + runDuration.toNanos();
+			for (int i = 0; i < this.clients; i++) {
+				User user = this.users.get(i % USERS);
+				futures.add(executor.submit(() -> new Client(user).run(deadline)));
+			}
+			futures.add(executor.submit(() -> this.logins(deadline)));
+			Map<String, Samples> merged = new HashMap<>();
+			for (Future<Map<String, Samples>> future : futures) {
+				future.get().forEach((endpoint, samples) -> merged.computeIfAbsent(endpoint, e -> new Samples()).addAll(samples));
+			}
+			return merged;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Sends logins at a fixed rate until the deadline without waiting for their responses, then waits for
+	 * all of them. A login that waited in the queue counts with its full delay, as the next one is sent on
+	 * time regardless.
+	 */
+	private Map<String, Samples> logins(long deadline) throws Exception {
+		Samples samples = new Samples();
+		List<CompletableFuture<Void>> pending = new ArrayList<>();
+		long interval = (long) (1_000_000_000L / this.loginRate);
+		long due = System.nanoTime();
+		for (int i = 0; due < deadline; i++, due += interval) {
+			long sleep = due - System.nanoTime();
+			if (sleep > 0) {
+				Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+			}
+			User user = this.users.get(i % USERS);
+			HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + this.port + "/api/auth/login"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(
+							Map.of("userName", user.getEmail(), "password", PASSWORD))))
+					.build();
+			long sent = due;
+			pending.add(this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.thenAccept(response -> {
+						synchronized (samples) {
+							samples.record(response.statusCode(), System.nanoTime() - sent);
+						}
+					}));
+		}
+		CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get();
+		return Map.of("login", samples);
+	}
+
+	private static byte[] randomPng() throws IOException {
+		BufferedImage image = new BufferedImage(200, 200, BufferedImage.TYPE_INT_RGB);
+		Random random = new Random(42);
+		for (int x = 0; x < image.getWidth(); x++) {
+			for (int y = 0; y < image.getHeight(); y++) {
+				image.setRGB(x, y, random.nextInt());
+			}
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * One simulated user, issuing requests back to back until the deadline.
+	 */
+	private class Client {
+		private final User user;
+		private final Map<String, Samples> samples = new HashMap<>();
+		private String authorization;
+
+		Client(User user) {
+			this.user = user;
+		}
+
+		Map<String, Samples> run(long deadline) throws Exception {
+			while (this.authorization == null) {
+				this.login();
+			}
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			int sequence = 0;
+			while (System.nanoTime() < deadline) {
+				int operation = random.nextInt(100);
+				int postId = LoadTests.this.postIds.get(random.nextInt(LoadTests.this.postIds.size()));
+				if (operation < 22) {
+					this.get("postsPage", "/api/posts?pageSize=10&pageNumber=" + random.nextInt(POSTS / 10));
+				} else if (operation < 32) {
+					this.get("postsCursor", "/api/posts?limit=10");
+				} else if (operation < 52) {
+					this.get("postById", "/api/post/" + postId);
+				} else if (operation < 57) {
+					this.get("postsByUser", "/api/user/" + LoadTests.this.users.get(random.nextInt(USERS)).getId() + "/posts?limit=10");
+				} else if (operation < 67) {
+					this.get("search", "/api/posts/search/" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)]);
+				} else if (operation < 75) {
+					this.get("comments", "/api/post/" + postId + "/comments?limit=10");
+				} else if (operation < 80) {
+					this.get("user", "/api/users/" + LoadTests.this.users.get(random.nextInt(USERS)).getId());
+				} else if (operation < 88) {
+					this.get("image", "/api/post/image/" + LoadTests.this.imageName);
+				} else if (operation < 96) {
+					List<Integer> ownPosts = LoadTests.this.postIdsByUser.get(this.user.getId());
+					int ownPostId = ownPosts.get(random.nextInt(ownPosts.size()));
+					this.post("createComment", "/api/user/" + this.user.getId() + "/post/" + ownPostId + "/comments",
+							Map.of("content", "Load comment " + sequence++));
+				} else {
+					Category category = LoadTests.this.categories.get(random.nextInt(CATEGORIES));
+					this.post("createPost", "/api/user/" + this.user.getId() + "/category/" + category.getCategoryId() + "/posts",
+							Map.of("postTitle", "Load written post " + sequence++, "postContent", "Written while under load"));
+				}
+			}
+			return this.samples;
+		}
+
+		private void login() throws Exception {
+			HttpResponse<byte[]> response = this.send("login", false, HttpRequest.newBuilder(this.uri("/api/auth/login"))
+					.header("Content-Type", "application/json")
+					.POST(this.json(Map.of("userName", this.user.getEmail(), "password", PASSWORD))));
+			if (response.statusCode() == 200) {
+				this.authorization = "Bearer " + LoadTests.this.objectMapper.readTree(response.body()).get("token").asText();
+			}
+		}
+
+		private void get(String endpoint, String path) throws Exception {
+			this.send(endpoint, true, HttpRequest.newBuilder(this.uri(path)).header("Authorization", this.authorization).GET());
+		}
+
+		private void post(String endpoint, String path, Map<String, String> body) throws Exception {
+			this.send(endpoint, true, HttpRequest.newBuilder(this.uri(path))
+					.header("Authorization", this.authorization)
+					.header("Content-Type", "application/json")
+					.POST(this.json(body)));
+		}
+
+		private HttpResponse<byte[]> send(String endpoint, boolean record, HttpRequest.Builder request) throws Exception {
+			long start = System.nanoTime();
+			HttpResponse<byte[]> response = LoadTests.this.httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+			long elapsed = System.nanoTime() - start;
+			if (record) {
+				this.samples.computeIfAbsent(endpoint, e -> new Samples()).record(response.statusCode(), elapsed);
+			}
+			return response;
+		}
+
+		private URI uri(String path) {
+			return URI.create("http://localhost:" + LoadTests.this.port + path);
+		}
+
+		private HttpRequest.BodyPublisher json(Object body) throws IOException {
+			return HttpRequest.BodyPublishers.ofByteArray(LoadTests.this.objectMapper.writeValueAsBytes(body));
+		}
+	}
+
+	/**
+	 * The latencies of the successful requests to one endpoint, plus the number of shed and failed ones.
+	 */
+	private static class Samples {
+		private long[] nanos = new long[1024];
+		private int size;
+		private long shed;
+		private long errors;
+
+		void record(int statusCode, long latency) {
+			if (statusCode < 300) {
+				this.add(latency);
+			} else if (statusCode == 503) {
+				this.shed++;
+			} else {
+				this.errors++;
+			}
+		}
+
+		void add(long latency) {
+			if (this.size == this.nanos.length) {
+				this.nanos = Arrays.copyOf(this.nanos, this.size * 2);
+			}
+			this.nanos[this.size++] = latency;
+		}
+
+		void addAll(Samples other) {
+			for (int i = 0; i < other.size; i++) {
+				this.add(other.nanos[i]);
+			}
+			this.shed += other.shed;
+			this.errors += other.errors;
+		}
+
+		int count() {
+			return this.size;
+		}
+
+		double percentile(double quantile) {
+			if (this.size == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(this.nanos, this.size);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(quantile * this.size) - 1;
+			return sorted[Math.max(0, index)] / 1_000_000.0;
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.subro.blog;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Saturates a login executor of one thread without a queue and checks that the next login is shed with 503
+ * and {@code Retry-After} instead of waiting.
+ */
+@SpringBootTest(properties = {"blog.login.pool-size=1", "blog.login.queue-capacity=0"})
+@AutoConfigureMockMvc
+class LoginSheddingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	@Qualifier("loginExecutor")
+	private ExecutorService loginExecutor;
+
+	@Test
+	void saturatedLoginExecutorShedsLogins() throws Exception {
+		CountDownLatch busy = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		this.loginExecutor.execute(() -> {
+			busy.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		try {
+			assertThat(busy.await(10, TimeUnit.SECONDS)).isTrue();
+			this.mockMvc.perform(post("/api/auth/login")
+							.contentType(MediaType.APPLICATION_JSON).content("{\"userName\":\"shed@blog.test\",\"password\":\"secret\"}"))
+					.andExpect(status().isServiceUnavailable())
+					.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+					.andExpect(jsonPath("$.status").value(503));
+		} finally {
+			release.countDown();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.subro.blog;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Exports more posts than fit into one fetch as newline-delimited JSON and checks the framing, that the
+ * statements issued grow with the number of fetches rather than posts, and that unknown owners are answered
+ * with 404.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostExportTests {
+	private static final int POSTS = 2 * Integer.parseInt(AppConstants.EXPORT_FETCH_SIZE) + 100;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private PostRepository postRepository;
+
+	private User user;
+	private User singlePostUser;
+	private Category category;
+
+	@BeforeAll
+	void seed() {
+		this.user = this.userRepository.save(user("export@blog.test"));
+		this.singlePostUser = this.userRepository.save(user("export-single@blog.test"));
+		this.category = this.categoryRepository.save(new Category(null, "Exports", "Posts to be exported", new ArrayList<>()));
+		List<Post> posts = new ArrayList<>();
+		for (int i = 0; i < POSTS; i++) {
+			Post post = new Post();
+			post.setPostTitle("Exported post " + i);
+			post.setPostContent("Body of exported post " + i);
+			post.setAddedDate(new Date());
+			post.setUser(this.user);
+			post.setCategory(this.category);
+			posts.add(post);
+		}
+		posts.get(0).setUser(this.singlePostUser);
+		this.postRepository.saveAll(posts);
+	}
+
+	@Test
+	void postsOfAUserAreExportedOnePerLineInBoundedFetches() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		assertThat(this.export(get("/api/user/{userId}/posts/export", this.singlePostUser.getId()))).hasSize(1);
+		long singlePostStatements = statistics.getPrepareStatementCount();
+
+		statistics.clear();
+		List<JsonNode> posts = this.export(get("/api/user/{userId}/posts/export", this.user.getId()));
+		// the persistence context is cleared after every fetch, after which only the eagerly fetched roles
+		// of the author are selected again; nothing is selected per post
+		int fetchSize = Integer.parseInt(AppConstants.EXPORT_FETCH_SIZE);
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(singlePostStatements + (POSTS - 1) / fetchSize);
+		assertThat(posts).hasSize(POSTS - 1);
+		assertThat(posts).allSatisfy(post -> assertThat(post.get("user").get("id").asInt()).isEqualTo(this.user.getId()));
+		assertThat(posts.get(POSTS - 2).get("postTitle").asText()).isEqualTo("Exported post " + (POSTS - 1));
+	}
+
+	@Test
+	void postsOfACategoryAreExportedOnePerLine() throws Exception {
+		List<JsonNode> posts = this.export(get("/api/category/{categoryId}/posts/export", this.category.getCategoryId()));
+		assertThat(posts).hasSize(POSTS);
+		assertThat(posts).allSatisfy(post ->
+				assertThat(post.get("category").get("categoryId").asInt()).isEqualTo(this.category.getCategoryId()));
+	}
+
+	@Test
+	void allPostsAreExportedOnePerLine() throws Exception {
+		long count = this.postRepository.count();
+		assertThat(this.export(get("/api/posts/export"))).hasSize((int) count);
+	}
+
+	@Test
+	void unknownOwnersAreNotFound() throws Exception {
+		this.mockMvc.perform(get("/api/user/{userId}/posts/export", -1))
+				.andExpect(status().isNotFound());
+		this.mockMvc.perform(get("/api/category/{categoryId}/posts/export", -1))
+				.andExpect(status().isNotFound());
+	}
+
+	private static User user(String email) {
+		User user = new User();
+		user.setName("export user");
+		user.setEmail(email);
+		user.setPassword("secret");
+		user.setAbout("about");
+		return user;
+	}
+
+	/**
+	 * Performs the export and parses every line on its own, so a line that is not exactly one JSON object
+	 * fails the test.
+	 */
+	private List<JsonNode> export(MockHttpServletRequestBuilder request) throws Exception {
+		MvcResult result = this.mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		result.getAsyncResult();
+		this.mockMvc.perform(asyncDispatch(result))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON));
+		String body = result.getResponse().getContentAsString();
+		assertThat(body).endsWith("\n");
+		List<JsonNode> posts = new ArrayList<>();
+		for (String line : body.split("\n")) {
+			assertThat(line).startsWith("{").endsWith("}");
+			posts.add(this.objectMapper.readTree(line));
+		}
+		return posts;
+	}
+}
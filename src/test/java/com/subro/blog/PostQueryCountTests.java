@@ -0,0 +1,605 @@
+package com.subro.blog;
+
+import com.subro.blog.cache.CategoryNearCache;
+import com.subro.blog.config.AppConstants;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Comment;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.Role;
+import com.subro.blog.entities.User;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.CommentRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
+import com.subro.blog.services.CategoryService;
+import com.subro.blog.views.PostViewCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Asserts that the post read endpoints issue a constant number of SQL statements, no matter how many
+ * posts, authors and comments end up on the page, and that no comment rows are read for post listings.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@WithMockUser
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PostQueryCountTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private CategoryRepository categoryRepository;
+	@Autowired
+	private PostRepository postRepository;
+	@Autowired
+	private CommentRepository commentRepository;
+	@Autowired
+	private PostSearchIndex postSearchIndex;
+	@Autowired
+	private CacheManager cacheManager;
+	@Autowired
+	private PostViewCounter postViewCounter;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	@Autowired
+	private CategoryService categoryService;
+	@Autowired
+	private CategoryNearCache categoryNearCache;
+
+	private User author;
+	private User otherAuthor;
+	private Category category;
+	private Post post;
+
+	@BeforeAll
+	void seed() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			User user = new User();
+			user.setName("query user " + i);
+			user.setEmail("query" + i + "@blog.test");
+			user.setPassword("secret");
+			user.setAbout("about");
+			user.setRoles(Set.of(new Role(0, "ROLE_QUERY_" + i)));
+			users.add(this.userRepository.save(user));
+		}
+		this.author = users.get(0);
+		this.otherAuthor = users.get(1);
+		this.category = this.categoryRepository.save(new Category(null, "Query counting", "Posts for query counting", new ArrayList<>()));
+		Category other = this.categoryRepository.save(new Category(null, "Other things", "Posts for the other category", new ArrayList<>()));
+		for (int i = 0; i < 12; i++) {
+			Post post = new Post();
+			post.setPostTitle("Counting queries " + i);
+			post.setPostContent("Content of post " + i);
+			post.setAddedDate(new Date());
+			post.setUser(i % 3 == 0 ? this.author : users.get(i % users.size()));
+			post.setCategory(i % 2 == 0 ? this.category : other);
+			this.post = this.postRepository.save(post);
+			for (int j = 0; j < 3; j++) {
+				Comment comment = new Comment();
+				comment.setContent("comment " + j);
+				comment.setPost(this.post);
+				comment.setUser(users.get(j));
+				this.commentRepository.save(comment);
+			}
+			Integer postId = this.post.getPostId();
+			new TransactionTemplate(this.transactionManager).executeWithoutResult(status ->
+					this.postRepository.adjustCommentCount(postId, 3));
+		}
+		this.postSearchIndex.rebuild();
+	}
+
+	@Test
+	void allPostsPageUsesBoundedQueries() throws Exception {
+		// page select with authors and categories, count
+		assertStatementCount(get("/api/posts").param("pageSize", "10"), 2);
+	}
+
+	@Test
+	void allPostsCursorSliceUsesBoundedQueries() throws Exception {
+		// window select with authors and categories
+		assertStatementCount(get("/api/posts").param("limit", "10"), 1);
+	}
+
+	@Test
+	void postsByUserUseBoundedQueries() throws Exception {
+		// user lookup, posts select
+		assertStatementCount(get("/api/user/{userId}/posts", this.author.getId()), 2);
+	}
+
+	@Test
+	void postsByCategoryUseBoundedQueries() throws Exception {
+		// category lookup on first use only, posts select with authors
+		assertStatementCount(get("/api/category/{categoryId}/posts", this.category.getCategoryId()), 2);
+	}
+
+	@Test
+	void postByIdUsesBoundedQueries() throws Exception {
+		this.cacheManager.getCache(AppConstants.POST_CACHE).clear();
+		// post select with author and category
+		assertStatementCount(get("/api/post/{postId}", this.post.getPostId()), 1);
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId()))
+				.andExpect(jsonPath("$.commentCount").value(3))
+				.andExpect(jsonPath("$.comments").doesNotExist());
+	}
+
+	@Test
+	void cachedPostByIdUsesNoQueries() throws Exception {
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId())).andExpect(status().isOk());
+		assertStatementCount(get("/api/post/{postId}", this.post.getPostId()), 0);
+	}
+
+	@Test
+	void postCacheEvictionsWaitForTheCommit() throws Exception {
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId())).andExpect(status().isOk());
+		Cache posts = this.cacheManager.getCache(AppConstants.POST_CACHE);
+		new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+			posts.evict(this.post.getPostId());
+			assertThat(posts.get(this.post.getPostId())).isNotNull();
+		});
+		assertThat(posts.get(this.post.getPostId())).isNull();
+	}
+
+	@Test
+	void cascadedDeletesEvictThePosts() throws Exception {
+		Category deleted = this.categoryRepository.save(new Category(null, "Evicted", "Deleted with its cached posts", new ArrayList<>()));
+		Post post = new Post();
+		post.setPostTitle("Cached until deleted");
+		post.setPostContent("Deleted along with its category");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(deleted);
+		Integer postId = this.postRepository.save(post).getPostId();
+		this.mockMvc.perform(get("/api/post/{postId}", postId)).andExpect(status().isOk());
+
+		this.categoryService.deleteCategory(deleted.getCategoryId());
+
+		this.mockMvc.perform(get("/api/post/{postId}", postId)).andExpect(status().isNotFound());
+	}
+
+	@Test
+	void searchIndexChangesWaitForTheCommit() throws Exception {
+		new TransactionTemplate(this.transactionManager).executeWithoutResult(status -> {
+			this.postSearchIndex.index(-1, "Uncommitted zebra", "Rolled back");
+			assertThat(this.postSearchIndex.search("zebra", 0, 10).getTotalElements()).isZero();
+			status.setRollbackOnly();
+		});
+		assertThat(this.postSearchIndex.search("zebra", 0, 10).getTotalElements()).isZero();
+
+		Category deleted = this.categoryRepository.save(new Category(null, "Deleted", "Deleted with its posts", new ArrayList<>()));
+		Post post = new Post();
+		post.setPostTitle("Cascaded okapi");
+		post.setPostContent("Deleted along with its category");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(deleted);
+		this.postSearchIndex.index(this.postRepository.save(post));
+		assertThat(this.postSearchIndex.search("okapi", 0, 10).getTotalElements()).isEqualTo(1);
+		this.categoryService.deleteCategory(deleted.getCategoryId());
+		assertThat(this.postSearchIndex.search("okapi", 0, 10).getTotalElements()).isZero();
+	}
+
+	@Test
+	void searchUsesBoundedQueries() throws Exception {
+		// select of the ranked page with authors and categories
+		assertStatementCount(get("/api/posts/search/{keywords}", "Counting"), 1);
+	}
+
+	@Test
+	void searchRanksPagesAndRejectsInvalidOnes() throws Exception {
+		this.mockMvc.perform(get("/api/posts/search/{keywords}", "count").param("pageNumber", "1").param("pageSize", "5"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.content.length()").value(5))
+				.andExpect(jsonPath("$.totalElements").value(12));
+		// too short to be expanded as a prefix
+		this.mockMvc.perform(get("/api/posts/search/{keywords}", "co"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.totalElements").value(0));
+		this.mockMvc.perform(get("/api/posts/search/{keywords}", "count").param("pageNumber", "-1"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "0"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void commentsSliceUsesBoundedQueries() throws Exception {
+		// post existence check, comments window
+		assertStatementCount(get("/api/post/{postId}/comments", this.post.getPostId()).param("limit", "2"), 2);
+		this.mockMvc.perform(get("/api/post/{postId}/comments", this.post.getPostId()).param("limit", "2"))
+				.andExpect(jsonPath("$.content.length()").value(2))
+				.andExpect(jsonPath("$.lastPage").value(false));
+	}
+
+	@Test
+	void batchCreateSendsInsertsInBatches() throws Exception {
+		StringBuilder body = new StringBuilder("[");
+		for (int i = 0; i < 120; i++) {
+			body.append(i == 0 ? "" : ",").append("{\"postTitle\":\"Batched post ").append(i).append("\",\"postContent\":\"Imported content\"}");
+		}
+		body.append("]");
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts/batch", this.otherAuthor.getId(), this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON).content(body.toString()))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.length()").value(120))
+				.andExpect(jsonPath("$[119].user.name").value(this.otherAuthor.getName()));
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+		// category lookup on first use only, user details, id sequence blocks of 50, insert batches of 50
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+	}
+
+	@Test
+	void createAttachesUserAndCategoryWithoutLoadingThem() throws Exception {
+		String body = "{\"postTitle\":\"Referenced post\",\"postContent\":\"Written without lookups\"}";
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts", this.author.getId(), this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated());
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts", this.author.getId(), this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isCreated())
+				.andExpect(jsonPath("$.user.id").value(this.author.getId()))
+				.andExpect(jsonPath("$.user.name").value(this.author.getName()))
+				.andExpect(jsonPath("$.user.password").doesNotExist())
+				.andExpect(jsonPath("$.category.categoryId").value(this.category.getCategoryId()))
+				.andExpect(jsonPath("$.category.categoryTitle").exists());
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts", -1, this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.message").value(containsString("User")));
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts", this.author.getId(), -1)
+						.contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isNotFound())
+				.andExpect(jsonPath("$.message").value(containsString("Category")));
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts", this.author.getId(), this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"postTitle\":\"Overlong post\",\"postContent\":\"" + "x".repeat(300) + "\"}"))
+				.andExpect(status().isInternalServerError());
+	}
+
+	@Test
+	void createReportsACategoryDeletedBehindTheNearCache() throws Exception {
+		String body = "{\"postTitle\":\"Orphaned post\",\"postContent\":\"Written into a deleted category\"}";
+		for (String path : List.of("/api/user/{userId}/category/{categoryId}/posts", "/api/user/{userId}/category/{categoryId}/posts/batch")) {
+			Category deleted = this.categoryRepository.save(new Category(null, "Deleted elsewhere", "Deleted through another instance", new ArrayList<>()));
+			assertThat(this.categoryNearCache.get(deleted.getCategoryId())).isPresent();
+			// deleted as through another instance, which this instance only sees at its next reload
+			this.categoryRepository.deleteById(deleted.getCategoryId());
+
+			this.mockMvc.perform(post(path, this.author.getId(), deleted.getCategoryId())
+							.contentType(MediaType.APPLICATION_JSON).content(path.endsWith("batch") ? "[" + body + "]" : body))
+					.andExpect(status().isNotFound())
+					.andExpect(jsonPath("$.message").value(containsString("Category")));
+			assertThat(this.categoryNearCache.get(deleted.getCategoryId())).isEmpty();
+		}
+	}
+
+	@Test
+	void commentUsesTheRowcountAsExistenceCheck() throws Exception {
+		Post post = new Post();
+		post.setPostTitle("Commented by its author");
+		post.setPostContent("Content");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(this.category);
+		post = this.postRepository.save(post);
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(post("/api/user/{userId}/post/{postId}/comments", this.author.getId(), post.getPostId())
+						.contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"First\"}"))
+				.andExpect(status().isCreated());
+		assertThat(statistics.getEntityLoadCount()).isZero();
+		assertThat(this.postRepository.findById(post.getPostId()).orElseThrow().getCommentCount()).isEqualTo(1);
+
+		this.mockMvc.perform(post("/api/user/{userId}/post/{postId}/comments", this.otherAuthor.getId(), post.getPostId())
+						.contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"Second\"}"))
+				.andExpect(status().isNotFound());
+		this.mockMvc.perform(post("/api/user/{userId}/post/{postId}/comments", this.author.getId(), -1)
+						.contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"Third\"}"))
+				.andExpect(status().isNotFound());
+	}
+
+	@Test
+	void batchCreateRejectsInvalidPosts() throws Exception {
+		this.mockMvc.perform(post("/api/user/{userId}/category/{categoryId}/posts/batch", this.otherAuthor.getId(), this.category.getCategoryId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("[{\"postTitle\":\"A valid title\",\"postContent\":\"Valid content\"},{\"postTitle\":\"\",\"postContent\":\"Valid content\"}]"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$['[1].postTitle']").exists());
+	}
+
+	@Test
+	void readsSkipTheFlush() throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "10")).andExpect(status().isOk());
+		assertThat(statistics.getFlushCount()).isZero();
+	}
+
+	@Test
+	void updateReliesOnDirtyChecking() throws Exception {
+		Post post = new Post();
+		post.setPostTitle("Before the update");
+		post.setPostContent("Content before the update");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(this.category);
+		post = this.postRepository.save(post);
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(put("/api/posts/{postId}", post.getPostId())
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"postTitle\":\"After the update\",\"postContent\":\"Content after the update\",\"imageName\":\"default.png\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.user.id").value(this.author.getId()))
+				.andExpect(jsonPath("$.version").value(post.getVersion() + 1));
+		assertThat(statistics.getEntityUpdateCount()).isEqualTo(1);
+		// post select with author and category, update
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+	}
+
+	@Test
+	void unchangedPostIsNotModifiedAfterAVersionLookup() throws Exception {
+		Post post = new Post();
+		post.setPostTitle("Conditional post");
+		post.setPostContent("Content of the conditional post");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(this.category);
+		post = this.postRepository.save(post);
+		String eTag = this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()))
+				.andExpect(status().isOk())
+				.andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(eTag).startsWith("W/\"");
+
+		// version select
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, eTag));
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(1);
+
+		this.mockMvc.perform(post("/api/user/{userId}/post/{postId}/comments", this.author.getId(), post.getPostId())
+						.contentType(MediaType.APPLICATION_JSON).content("{\"content\":\"A new comment\"}"))
+				.andExpect(status().isCreated());
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+				.andExpect(jsonPath("$.commentCount").value(1));
+	}
+
+	@Test
+	void unchangedPostsPageIsNotModifiedAfterAVersionLookup() throws Exception {
+		String eTag = this.mockMvc.perform(get("/api/posts").param("pageSize", "5"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		// version page select, count
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "5").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "6").header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void unchangedListingsAreNotModifiedAfterAVersionLookup() throws Exception {
+		MockHttpServletResponse firstSlice = this.mockMvc.perform(get("/api/posts").param("limit", "3").param("sortBy", "postTitle"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		String after = new ObjectMapper().readTree(firstSlice.getContentAsString()).get("nextCursor").asText();
+		List<MockHttpServletRequestBuilder> listings = List.of(
+				get("/api/user/{userId}/posts", this.author.getId()),
+				get("/api/user/{userId}/posts", this.author.getId()).param("limit", "2"),
+				get("/api/category/{categoryId}/posts", this.category.getCategoryId()),
+				get("/api/category/{categoryId}/posts", this.category.getCategoryId()).param("limit", "2"),
+				get("/api/posts").param("limit", "3").param("sortBy", "postTitle"),
+				get("/api/posts").param("limit", "3").param("after", after));
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		for (MockHttpServletRequestBuilder listing : listings) {
+			String eTag = this.mockMvc.perform(listing)
+					.andExpect(status().isOk())
+					.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+			// existence check, version select
+			statistics.clear();
+			this.mockMvc.perform(listing.header(HttpHeaders.IF_NONE_MATCH, eTag))
+					.andExpect(status().isNotModified())
+					.andExpect(header().string(HttpHeaders.ETAG, eTag));
+			assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(2);
+			assertThat(statistics.getEntityLoadCount()).isZero();
+		}
+		this.mockMvc.perform(get("/api/posts").param("limit", "4").param("after", after).header(HttpHeaders.IF_NONE_MATCH,
+						firstSlice.getHeader(HttpHeaders.ETAG)))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void postsPageIsNegotiatedAsCborAndSmile() throws Exception {
+		MockHttpServletResponse json = this.mockMvc.perform(get("/api/posts").param("pageSize", "5"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse();
+		MockHttpServletResponse cbor = this.mockMvc.perform(get("/api/posts").param("pageSize", "5").accept(MediaType.APPLICATION_CBOR))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_CBOR))
+				.andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+				.andReturn().getResponse();
+		JsonNode page = new CBORMapper().readTree(cbor.getContentAsByteArray());
+		assertThat(page.get("content")).hasSize(5);
+		assertThat(page.get("pageSize").asInt()).isEqualTo(5);
+		assertThat(cbor.getContentAsByteArray().length).isLessThan(json.getContentAsByteArray().length);
+
+		String cborETag = cbor.getHeader(HttpHeaders.ETAG);
+		assertThat(cborETag).isNotEqualTo(json.getHeader(HttpHeaders.ETAG));
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "5").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborETag))
+				.andExpect(status().isNotModified());
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "5").header(HttpHeaders.IF_NONE_MATCH, cborETag))
+				.andExpect(status().isOk());
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId()).accept("application/x-jackson-smile"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith("application/x-jackson-smile"))
+				.andExpect(header().string(HttpHeaders.ETAG, endsWith("-smile\"")));
+	}
+
+	@Test
+	void sparsePostsPageReadsOnlyTheSelectedFields() throws Exception {
+		assertStatementCount(get("/api/posts").param("pageSize", "5").param("fields", "postId,postTitle,user.name"), 2);
+		this.mockMvc.perform(get("/api/posts").param("pageSize", "5").param("fields", "postId,postTitle,user.name"))
+				.andExpect(status().isOk())
+				.andExpect(header().doesNotExist(HttpHeaders.ETAG))
+				.andExpect(jsonPath("$.content[0].postTitle").exists())
+				.andExpect(jsonPath("$.content[0].user.name").exists())
+				.andExpect(jsonPath("$.content[0].postContent").doesNotExist())
+				.andExpect(jsonPath("$.content[0].user.email").doesNotExist())
+				.andExpect(jsonPath("$.content[0].category").doesNotExist());
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId()).param("fields", "postTitle,category"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.postTitle").value(this.post.getPostTitle()))
+				.andExpect(jsonPath("$.category.categoryTitle").exists())
+				.andExpect(jsonPath("$.user").doesNotExist());
+	}
+
+	@Test
+	void unknownFieldsAreRejected() throws Exception {
+		this.mockMvc.perform(get("/api/posts").param("fields", "postTitle,user.password"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/posts").param("fields", "postTitle").param("limit", "5"))
+				.andExpect(status().isBadRequest());
+		this.mockMvc.perform(get("/api/users/{userId}", this.author.getId()).param("fields", "password"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void invalidCursorsAreRejected() throws Exception {
+		this.mockMvc.perform(get("/api/posts").param("limit", "5").param("after", "not a cursor"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.message").value("Invalid cursor"));
+		this.mockMvc.perform(get("/api/posts").param("limit", "5").param("sortBy", "postContent"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void userPasswordIsNeverSerialized() throws Exception {
+		this.mockMvc.perform(get("/api/users/{userId}", this.author.getId()))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.email").value(this.author.getEmail()))
+				.andExpect(jsonPath("$.password").doesNotExist());
+		this.mockMvc.perform(get("/api/users/").param("fields", "name"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].name").exists())
+				.andExpect(jsonPath("$[0].email").doesNotExist());
+	}
+
+	@Test
+	void viewsAreCountedInMemoryAndFlushedInBatches() throws Exception {
+		Post post = new Post();
+		post.setPostTitle("Viewed post");
+		post.setPostContent("Content");
+		post.setAddedDate(new Date());
+		post.setUser(this.author);
+		post.setCategory(this.category);
+		post = this.postRepository.save(post);
+		for (int i = 1; i <= 3; i++) {
+			// post select on the first view only, the view itself writes nothing
+			assertStatementCount(get("/api/post/{postId}", post.getPostId()), i == 1 ? 1 : 0);
+		}
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()))
+				.andExpect(jsonPath("$.viewCount").value(4));
+		assertThat(this.postRepository.findById(post.getPostId()).orElseThrow().getViewCount()).isZero();
+
+		this.postViewCounter.flush();
+		assertThat(this.postRepository.findById(post.getPostId()).orElseThrow().getViewCount()).isEqualTo(4);
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()))
+				.andExpect(jsonPath("$.viewCount").value(5));
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()).param("fields", "viewCount"))
+				.andExpect(jsonPath("$.viewCount").value(4));
+
+		// the second flush finds the post idle and drops its counter together with its cached copy
+		this.postViewCounter.flush();
+		this.postViewCounter.flush();
+		assertThat(((Map<?, ?>) ReflectionTestUtils.getField(this.postViewCounter, "counters")).containsKey(post.getPostId())).isFalse();
+		this.mockMvc.perform(get("/api/post/{postId}", post.getPostId()))
+				.andExpect(jsonPath("$.viewCount").value(7));
+	}
+
+	@Test
+	void statementsPerRequestArePublished() throws Exception {
+		this.mockMvc.perform(get("/api/posts").param("limit", "10")).andExpect(status().isOk());
+		this.mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("hibernate_statements_per_request_statements_count{method=\"GET\",uri=\"/api/posts\"}")))
+				.andExpect(content().string(containsString("hibernate_query_executions_total")))
+				.andExpect(content().string(containsString("hikaricp_connections_active")));
+	}
+
+	@Test
+	void postAndImageCacheMetricsArePublishedTogether() throws Exception {
+		this.mockMvc.perform(get("/api/post/{postId}", this.post.getPostId())).andExpect(status().isOk());
+		this.mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andExpect(content().string(containsString("cache_gets_total{cache=\"posts\"")))
+				.andExpect(content().string(containsString("cache_gets_total{cache=\"images\"")));
+	}
+
+	private void assertStatementCount(MockHttpServletRequestBuilder request, long expected) throws Exception {
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		this.mockMvc.perform(request).andExpect(status().isOk());
+		assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(expected);
+	}
+}
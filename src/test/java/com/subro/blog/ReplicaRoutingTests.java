@@ -0,0 +1,70 @@
+package com.subro.blog;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routes against two in-memory databases: the replica gets a copy of the schema but none of the writes, so
+ * every read shows which database answered it.
+ */
+@SpringBootTest(properties = {
+		"blog.datasource.replica.jdbc-url=jdbc:h2:mem:blog_app_apis_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER",
+		"blog.datasource.replica.username=sa"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReplicaRoutingTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	@Qualifier("primaryDataSource")
+	private DataSource primaryDataSource;
+	@Autowired
+	@Qualifier("replicaDataSource")
+	private DataSource replicaDataSource;
+
+	@BeforeAll
+	void copySchemaToReplica() {
+		JdbcTemplate replica = new JdbcTemplate(this.replicaDataSource);
+		List<String> schema = new JdbcTemplate(this.primaryDataSource).queryForList("script nodata", String.class);
+		schema.forEach(replica::execute);
+		replica.update("insert into categories (category_id, title, description) values (1000, 'Replica only', 'Only on the replica')");
+	}
+
+	@Test
+	void readsGoToTheReplicaAndWritersReadTheirWrites() throws Exception {
+		this.mockMvc.perform(get("/api/categories/").with(user("reader")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].categoryTitle").value(hasItem("Replica only")));
+
+		this.mockMvc.perform(post("/api/categories/").with(user("writer"))
+						.contentType(MediaType.APPLICATION_JSON)
+						.content("{\"categoryTitle\":\"Written to primary\",\"categoryDescription\":\"Only on the primary\"}"))
+				.andExpect(status().isCreated());
+
+		this.mockMvc.perform(get("/api/categories/").with(user("writer")))
+				.andExpect(jsonPath("$[*].categoryTitle").value(hasItem("Written to primary")));
+		this.mockMvc.perform(get("/api/categories/").with(user("reader")))
+				.andExpect(jsonPath("$[*].categoryTitle").value(not(hasItem("Written to primary"))));
+	}
+}
@@ -0,0 +1,51 @@
+package com.subro.blog;
+
+import com.subro.blog.config.SchemaUpgrader;
+import com.subro.blog.entities.Comment;
+import com.subro.blog.entities.Post;
+import com.subro.blog.repositories.CommentRepository;
+import com.subro.blog.repositories.PostRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the schema upgrades against rows written the way an older version of the application left them, in a
+ * database of its own.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:blog_app_apis_upgrade;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER")
+class SchemaUpgradeTests {
+
+	@Autowired
+	private SchemaUpgrader schemaUpgrader;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private PostRepository postRepository;
+	@Autowired
+	private CommentRepository commentRepository;
+
+	@Test
+	void upgradesRowsWrittenBeforeSequencesAndCommentCounts() {
+		this.jdbcTemplate.update("insert into posts (post_id, post_title, post_content, version) values (5000, 'Identity post', 'Written with an identity id', 0)");
+		this.jdbcTemplate.update("insert into comments (id, content, post_post_id) values (7000, 'Identity comment', 5000)");
+
+		this.schemaUpgrader.upgrade();
+		this.schemaUpgrader.upgrade();
+
+		Post post = new Post();
+		post.setPostTitle("Sequence post");
+		post.setPostContent("Written with a sequence id");
+		post.setAddedDate(new Date());
+		assertThat(this.postRepository.save(post).getPostId()).isGreaterThan(5000);
+		Comment comment = new Comment();
+		comment.setContent("Sequence comment");
+		assertThat(this.commentRepository.save(comment).getId()).isGreaterThan(7000);
+		assertThat(this.postRepository.findById(5000).orElseThrow().getCommentCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,33 @@
+package com.subro.blog.benchmarks;
+
+import com.subro.blog.entities.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link User#getAuthorities()}, which builds the authorities of the principal for every
+ * authenticated request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthoritiesBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        this.user = BenchmarkFixtures.user(42);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> authorities() {
+        return this.user.getAuthorities();
+    }
+}
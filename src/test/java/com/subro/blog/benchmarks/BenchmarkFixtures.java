@@ -0,0 +1,48 @@
+package com.subro.blog.benchmarks;
+
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.Role;
+import com.subro.blog.entities.User;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Entity graphs shaped like the ones the post endpoints map on every request.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    static User user(int id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Benchmark User " + id);
+        user.setEmail("user" + id + "@blog.test");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z3ZRhG0XjT0eDuYaV0nxgB9K");
+        user.setAbout("Writes about performance engineering and the JVM.");
+        Set<Role> roles = new HashSet<>();
+        roles.add(new Role(1, "ROLE_USER"));
+        roles.add(new Role(2, "ROLE_AUTHOR"));
+        user.setRoles(roles);
+        return user;
+    }
+
+    static Post post(int id) {
+        Category category = new Category(3, "Performance", "Posts about making things fast", new ArrayList<>());
+        Post post = new Post();
+        post.setPostId(id);
+        post.setPostTitle("Post number " + id + " about keyset pagination");
+        post.setPostContent("Offset pagination gets slower the deeper a client scrolls. ".repeat(20));
+        post.setImageName("default.png");
+        post.setAddedDate(new Date());
+        post.setUser(user(id % 7));
+        post.setCategory(category);
+        post.setCommentCount(10);
+        return post;
+    }
+}
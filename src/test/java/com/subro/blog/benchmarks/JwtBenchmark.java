@@ -0,0 +1,54 @@
+package com.subro.blog.benchmarks;
+
+import com.subro.blog.entities.User;
+import com.subro.blog.security.JWTTokenHelper;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the token work of {@link JWTTokenHelper}: issuing a token on login, and the parse and validate
+ * that {@code JwtAuthenticationFilter} runs on every authenticated request.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private JWTTokenHelper jwtTokenHelper;
+    private User user;
+    private String token;
+    private Claims claims;
+
+    @Setup
+    public void setUp() {
+        this.jwtTokenHelper = new JWTTokenHelper();
+        this.user = BenchmarkFixtures.user(42);
+        this.token = this.jwtTokenHelper.generateToken(this.user);
+        this.claims = this.jwtTokenHelper.parseClaims(this.token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return this.jwtTokenHelper.generateToken(this.user);
+    }
+
+    @Benchmark
+    public Claims parse() {
+        return this.jwtTokenHelper.parseClaims(this.token);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return this.jwtTokenHelper.validateToken(this.claims, this.user);
+    }
+
+    @Benchmark
+    public boolean parseAndValidate() {
+        return this.jwtTokenHelper.validateToken(this.token, this.user);
+    }
+}
@@ -0,0 +1,49 @@
+package com.subro.blog.benchmarks;
+
+import com.subro.blog.entities.Post;
+import com.subro.blog.mappers.CategoryMapperImpl;
+import com.subro.blog.mappers.PostMapper;
+import com.subro.blog.mappers.PostMapperImpl;
+import com.subro.blog.mappers.UserMapperImpl;
+import com.subro.blog.payloads.PostDto;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated {@link PostMapper} against the reflective ModelMapper it replaced on the
+ * Post to PostDto conversion done for every post that leaves the API. Run with {@code -prof gc}
+ * (the default of the benchmark profile) to also compare the bytes allocated per mapping.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private Post post;
+    private ModelMapper modelMapper;
+    private PostMapper postMapper;
+
+    @Setup
+    public void setUp() {
+        this.post = BenchmarkFixtures.post(42);
+        this.modelMapper = new ModelMapper();
+        this.postMapper = new PostMapperImpl(new UserMapperImpl(), new CategoryMapperImpl());
+        // let ModelMapper build its type maps outside of the measurement
+        this.modelMapper.map(this.post, PostDto.class);
+    }
+
+    @Benchmark
+    public PostDto modelMapper() {
+        return this.modelMapper.map(this.post, PostDto.class);
+    }
+
+    @Benchmark
+    public PostDto generatedMapper() {
+        return this.postMapper.toDto(this.post);
+    }
+}
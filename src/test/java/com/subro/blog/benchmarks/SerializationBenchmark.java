@@ -0,0 +1,65 @@
+package com.subro.blog.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.subro.blog.mappers.CategoryMapperImpl;
+import com.subro.blog.mappers.PostMapper;
+import com.subro.blog.mappers.PostMapperImpl;
+import com.subro.blog.mappers.UserMapperImpl;
+import com.subro.blog.payloads.PostDto;
+import com.subro.blog.payloads.PostResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Jackson serialization of a {@link PostResponse} page, the last step of every post listing,
+ * in each format the listings can be negotiated in: JSON, CBOR and Smile. The ObjectMappers are built the
+ * way Spring Boot builds the ones used by the message converters. The encoded size of the page is printed
+ * once per trial, next to the encode time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private PostResponse postResponse;
+
+    @Setup
+    public void setUp() {
+        this.objectMapper = switch (this.format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        PostMapper postMapper = new PostMapperImpl(new UserMapperImpl(), new CategoryMapperImpl());
+        List<PostDto> content = new ArrayList<>();
+        for (int i = 0; i < this.pageSize; i++) {
+            content.add(postMapper.toDto(BenchmarkFixtures.post(i)));
+        }
+        this.postResponse = new PostResponse(content, 0, this.pageSize, 10_000, 10_000 / this.pageSize, false);
+    }
+
+    @TearDown
+    public void printSize() throws JsonProcessingException {
+        System.out.println(this.format + " page of " + this.pageSize + " posts: "
+                + this.objectMapper.writeValueAsBytes(this.postResponse).length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] postResponse() throws JsonProcessingException {
+        return this.objectMapper.writeValueAsBytes(this.postResponse);
+    }
+}
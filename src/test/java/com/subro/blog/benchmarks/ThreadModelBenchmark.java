@@ -0,0 +1,138 @@
+package com.subro.blog.benchmarks;
+
+import com.subro.blog.BlogAppApisApplication;
+import com.subro.blog.entities.Category;
+import com.subro.blog.entities.Post;
+import com.subro.blog.entities.User;
+import com.subro.blog.repositories.CategoryRepository;
+import com.subro.blog.repositories.PostRepository;
+import com.subro.blog.repositories.UserRepository;
+import com.subro.blog.search.PostSearchIndex;
+import com.subro.blog.security.JWTTokenHelper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request handling on Tomcat's platform thread pool against virtual threads
+ * ({@code spring.threads.virtual.enabled}) on the existing post endpoints. Every trial boots the whole
+ * application on a random port against the in-memory H2 database of the test configuration, seeds it and
+ * drives it over HTTP with more concurrent clients than Tomcat has platform threads. Throughput and the
+ * latency percentiles (p99 in the SampleTime results) are reported per endpoint.
+ * <p>
+ * The virtual mode needs a Java 21 runtime:
+ * {@code mvn -Pbenchmark -DskipTests verify -Djmh.args="ThreadModelBenchmark"} with JAVA_HOME pointing to a JDK 21.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(256)
+@State(Scope.Benchmark)
+public class ThreadModelBenchmark {
+    private static final int USERS = 20;
+    private static final int POSTS = 2000;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private String authorization;
+    private int firstPostId;
+    private int firstUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = this.threads.equals("virtual");
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need a Java 21 runtime, running on " + Runtime.version());
+        }
+        this.context = SpringApplication.run(BlogAppApisApplication.class,
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtual,
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+
+        UserRepository userRepository = this.context.getBean(UserRepository.class);
+        CategoryRepository categoryRepository = this.context.getBean(CategoryRepository.class);
+        PostRepository postRepository = this.context.getBean(PostRepository.class);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = BenchmarkFixtures.user(0);
+            user.setId(0);
+            user.setRoles(new HashSet<>());
+            user.setEmail("thread-model" + i + "@blog.test");
+            users.add(userRepository.save(user));
+        }
+        Category category = categoryRepository.save(new Category(null, "Threads", "Platform and virtual threads", new ArrayList<>()));
+        List<Post> posts = new ArrayList<>();
+        for (int i = 0; i < POSTS; i++) {
+            Post post = BenchmarkFixtures.post(0);
+            post.setPostId(null);
+            post.setPostContent("Blocking JDBC calls on platform threads cap concurrency long before the CPU does.");
+            post.setUser(users.get(i % USERS));
+            post.setCategory(category);
+            posts.add(post);
+        }
+        this.firstPostId = postRepository.saveAll(posts).get(0).getPostId();
+        this.firstUserId = users.get(0).getId();
+        this.context.getBean(PostSearchIndex.class).rebuild();
+
+        this.authorization = "Bearer " + this.context.getBean(JWTTokenHelper.class).generateToken(users.get(0));
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int postsPage() throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(POSTS / 10);
+        return this.get("/api/posts?pageSize=10&pageNumber=" + page);
+    }
+
+    @Benchmark
+    public int postById() throws IOException, InterruptedException {
+        return this.get("/api/post/" + (this.firstPostId + ThreadLocalRandom.current().nextInt(POSTS)));
+    }
+
+    @Benchmark
+    public int postsByUserSlice() throws IOException, InterruptedException {
+        return this.get("/api/user/" + (this.firstUserId + ThreadLocalRandom.current().nextInt(USERS)) + "/posts?limit=10");
+    }
+
+    @Benchmark
+    public int search() throws IOException, InterruptedException {
+        return this.get("/api/posts/search/pagination");
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(this.baseUrl + path))
+                .header("Authorization", this.authorization)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = this.client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}